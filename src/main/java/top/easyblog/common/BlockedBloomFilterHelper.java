@@ -0,0 +1,153 @@
+package top.easyblog.common;
+
+import com.google.common.hash.Funnel;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Longs;
+
+/**
+ * 分块(cache-line blocked)布隆过滤器。bit数组按512bit(64字节，一个cache line)分块，
+ * 一个hash值选出元素所在的块，k个bit位全部落在这个块内：远程查询只需要读取64字节，本地查询只访问一个cache line。
+ * 代价是各块的负载不均匀，相同bit数下误判率略高于普通布隆过滤器，可以通过{@link #getExpectedFpp()}和
+ * {@link #getUnblockedFpp()}比较
+ *
+ * @param <T>
+ * @author Huangxin
+ */
+public class BlockedBloomFilterHelper<T> extends BloomFilterHelper<T> {
+
+    /**
+     * 每个块的bit数
+     */
+    public static final int BLOCK_BITS = 512;
+
+    private static final int BLOCK_SHIFT = 9;
+
+    /**
+     * 每个块的字节数
+     */
+    public static final int BLOCK_BYTES = BLOCK_BITS / Byte.SIZE;
+
+    private static final long LCG_MULTIPLIER = 6364136223846793005L;
+
+    private static final long LCG_INCREMENT = 1442695040888963407L;
+
+    private final int numBlocks;
+
+    private final long expectedInsertions;
+
+    public BlockedBloomFilterHelper(Funnel<T> funnel, long expectedInsertions, double fpp) {
+        this(funnel, expectedInsertions, blockAlignedBits(expectedInsertions, fpp));
+    }
+
+    private BlockedBloomFilterHelper(Funnel<T> funnel, long expectedInsertions, int bitSize) {
+        super(funnel, bitSize, optimalNumOfHashFunctions(expectedInsertions, bitSize));
+        this.numBlocks = bitSize / BLOCK_BITS;
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    public int getNumBlocks() {
+        return numBlocks;
+    }
+
+    /**
+     * 插入expectedInsertions个元素后分块布隆过滤器的误判率
+     */
+    public double getExpectedFpp() {
+        return blockedFpp(expectedInsertions, getBitSize(), getNumHashFunctions());
+    }
+
+    /**
+     * 相同bit数和hash函数个数的普通布隆过滤器插入expectedInsertions个元素后的误判率
+     */
+    public double getUnblockedFpp() {
+        return Math.pow(1 - Math.exp(-(double) getNumHashFunctions() * expectedInsertions / getBitSize()), getNumHashFunctions());
+    }
+
+    /**
+     * hash，murmur3_128的低64位选块，高64位在块内做双重哈希
+     *
+     * @param value 关键字
+     * @return k个偏移量，全部位于同一个块内
+     */
+    @Override
+    public int[] murmurHashOffset(T value) {
+        byte[] bytes = Hashing.murmur3_128().hashObject(value, getFunnel()).asBytes();
+        long hash1 = Longs.fromBytes(bytes[7], bytes[6], bytes[5], bytes[4], bytes[3], bytes[2], bytes[1], bytes[0]);
+        long hash2 = Longs.fromBytes(bytes[15], bytes[14], bytes[13], bytes[12], bytes[11], bytes[10], bytes[9], bytes[8]);
+
+        int blockStart = (int) ((hash1 >>> 1) % numBlocks) * BLOCK_BITS;
+        //块内只有512个位置，双重哈希只用到步长的低9位，组合太少会抬高误判率，
+        //所以以hash2为种子用64位线性同余序列的高9位依次生成块内位置
+        long state = hash2;
+        int[] offset = new int[getNumHashFunctions()];
+        for (int i = 0; i < offset.length; i++) {
+            offset[i] = blockStart + (int) (state >>> (Long.SIZE - BLOCK_SHIFT));
+            state = state * LCG_MULTIPLIER + LCG_INCREMENT;
+        }
+        return offset;
+    }
+
+    /**
+     * 元素所在块的第一个字节在bitmap中的位置
+     *
+     * @param offset murmurHashOffset的结果
+     * @return 字节偏移量
+     */
+    public long blockByteOffset(int[] offset) {
+        return (long) (offset[0] / BLOCK_BITS) * BLOCK_BYTES;
+    }
+
+    /**
+     * 根据从Redis读出的块内容(GETRANGE结果，bit顺序与Redis bitmap一致)判断元素是否可能存在
+     *
+     * @param block  元素所在块的64个字节，key末尾不足64字节时可能更短
+     * @param offset murmurHashOffset的结果
+     * @return 可能存在返回true，一定不存在false
+     */
+    public boolean blockContains(byte[] block, int[] offset) {
+        if (block == null) {
+            return false;
+        }
+        for (int i : offset) {
+            int bit = i & (BLOCK_BITS - 1);
+            int index = bit >>> 3;
+            if (index >= block.length || (block[index] & (0x80 >>> (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * bit数组长度向上取整到块大小的整数倍
+     */
+    private static int blockAlignedBits(long n, double p) {
+        long numBits = optimalNumOfBits(n, p);
+        long blocks = Math.max(1, (numBits + BLOCK_BITS - 1) / BLOCK_BITS);
+        if (blocks * BLOCK_BITS > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("bit数组长度" + numBits + "超过了2^31");
+        }
+        return (int) (blocks * BLOCK_BITS);
+    }
+
+    /**
+     * 分块布隆过滤器的误判率：每个块的元素个数近似服从均值为n*512/m的泊松分布，
+     * 对每种负载下512bit小过滤器的误判率按概率加权求和
+     */
+    static double blockedFpp(long n, long m, int k) {
+        double lambda = (double) n * BLOCK_BITS / m;
+        double logLambda = Math.log(lambda);
+        double logProbability = -lambda;
+        double fpp = 0;
+        long limit = (long) (lambda + 20 * Math.sqrt(lambda) + 20);
+        for (long i = 0; i <= limit; i++) {
+            if (i > 0) {
+                logProbability += logLambda - Math.log(i);
+            }
+            double blockFpp = Math.pow(1 - Math.pow(1 - 1.0 / BLOCK_BITS, (double) k * i), k);
+            fpp += Math.exp(logProbability) * blockFpp;
+        }
+        return fpp;
+    }
+
+}
@@ -17,30 +17,73 @@ public class BloomFilterHelper<T> {
 
     private Funnel<T> funnel;
 
-    public BloomFilterHelper(Funnel<T> funnel, int expectedInsertions, double fpp) {
+    public BloomFilterHelper(Funnel<T> funnel, long expectedInsertions, double fpp) {
         Objects.requireNonNull(funnel,"Funnel<T> funnel不能为空！");
         this.funnel = funnel;
-        bitSize = optimalNumOfBits(expectedInsertions, fpp);
+        long numBits = optimalNumOfBits(expectedInsertions, fpp);
+        if (numBits > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("bit数组长度" + numBits + "超过了2^31，请使用ShardedBloomFilterHelper");
+        }
+        bitSize = (int) numBits;
         numHashFunctions = optimalNumOfHashFunctions(expectedInsertions, bitSize);
     }
 
+    /**
+     * 由子类直接指定bit数组长度和hash函数个数
+     */
+    protected BloomFilterHelper(Funnel<T> funnel, int bitSize, int numHashFunctions) {
+        Objects.requireNonNull(funnel,"Funnel<T> funnel不能为空！");
+        this.funnel = funnel;
+        this.bitSize = bitSize;
+        this.numHashFunctions = numHashFunctions;
+    }
+
+    protected Funnel<T> getFunnel() {
+        return funnel;
+    }
+
+    public int getNumHashFunctions() {
+        return numHashFunctions;
+    }
+
+    public int getBitSize() {
+        return bitSize;
+    }
+
     /**
      * 根据目标要插入的数据大小expectedInsertions，计算合适的bit数组的长度
      */
-    private int optimalNumOfBits(long n, double p) {
-        if (p == 0) {
+    static long optimalNumOfBits(long n, double p) {
+        if (p <= 0 || p >= 1) {
             throw new IllegalArgumentException("illegal parameter: p"+p);
         }
-        return (int) (-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        return (long) (-n * Math.log(p) / (Math.log(2) * Math.log(2)));
     }
 
     /**
      * 根据目标要插入的数据大小expectedInsertions，计算合适的hash函数的个数
      */
-    private int optimalNumOfHashFunctions(long n, long m) {
+    static int optimalNumOfHashFunctions(long n, long m) {
         return Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
     }
 
+    /**
+     * 根据bit数组中为1的位数X估算已经插入的元素个数：n ≈ -(m / k) * ln(1 - X / m)，bit位全为1时为无穷大
+     */
+    public double estimateInsertions(long setBits) {
+        if (setBits >= bitSize) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return -((double) bitSize / numHashFunctions) * Math.log(1 - (double) setBits / bitSize);
+    }
+
+    /**
+     * 根据bit数组中为1的位数X估算当前的误判率：p ≈ (X / m)^k
+     */
+    public double estimateFpp(long setBits) {
+        return Math.pow((double) Math.min(setBits, bitSize) / bitSize, numHashFunctions);
+    }
+
     /**
      * hash
      *
@@ -0,0 +1,134 @@
+package top.easyblog.common;
+
+import com.google.common.hash.Funnel;
+import com.google.common.hash.Hashing;
+
+import java.util.Objects;
+
+/**
+ * 布谷鸟过滤器(cuckoo filter)的哈希参数。过滤器由numBuckets个桶组成，每个桶4个槽位，每个槽位保存一个fingerprintBits位的指纹，
+ * 在Redis中以BITFIELD u{fingerprintBits} #槽位序号 的方式存放在一个字符串里，指纹0表示空槽位。
+ * 元素只可能位于两个候选桶之一：i1由哈希值决定，i2 = (hash(fp) - i1) mod numBuckets，对i2做同样的计算又得到i1，
+ * 所以不要求桶数是2的幂。查询只需读取两个桶，并且支持删除
+ *
+ * @param <T>
+ * @author Huangxin
+ */
+public class CuckooFilterHelper<T> {
+
+    /**
+     * 每个桶的槽位数
+     */
+    public static final int BUCKET_SIZE = 4;
+
+    /**
+     * 桶数按该装载率计算，4槽位的布谷鸟过滤器装载率可以达到95%
+     */
+    private static final double LOAD_FACTOR = 0.95;
+
+    /**
+     * 计算备用桶时使用的乘数，Lua脚本中使用同一个常量
+     */
+    private static final long FINGERPRINT_MULTIPLIER = 0x5bd1e995L;
+
+    /**
+     * 指纹最大位数，保证Lua脚本中 指纹 * FINGERPRINT_MULTIPLIER 在double中可以精确表示
+     */
+    private static final int MAX_FINGERPRINT_BITS = 20;
+
+    private final int fingerprintBits;
+
+    private final int numBuckets;
+
+    private final Funnel<T> funnel;
+
+    public CuckooFilterHelper(Funnel<T> funnel, long expectedInsertions, double fpp) {
+        Objects.requireNonNull(funnel, "Funnel<T> funnel不能为空！");
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("illegal parameter: p" + fpp);
+        }
+        this.funnel = funnel;
+        //误判率约为 2 * BUCKET_SIZE / 2^f
+        int bits = (int) Math.ceil(Math.log(2.0 * BUCKET_SIZE / fpp) / Math.log(2));
+        this.fingerprintBits = Math.max(4, Math.min(MAX_FINGERPRINT_BITS, bits));
+        long buckets = (long) Math.ceil(expectedInsertions / (BUCKET_SIZE * LOAD_FACTOR));
+        if (buckets * BUCKET_SIZE * fingerprintBits > (1L << 32)) {
+            throw new IllegalArgumentException("布谷鸟过滤器超过了Redis单个字符串2^32 bit的上限");
+        }
+        this.numBuckets = (int) Math.max(1, buckets);
+    }
+
+    public int getFingerprintBits() {
+        return fingerprintBits;
+    }
+
+    public int getNumBuckets() {
+        return numBuckets;
+    }
+
+    /**
+     * 过滤器占用的字节数
+     */
+    public long getSizeInBytes() {
+        return ((long) numBuckets * BUCKET_SIZE * fingerprintBits + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
+    /**
+     * 满载时的理论误判率
+     */
+    public double getExpectedFpp() {
+        return 2.0 * BUCKET_SIZE / ((1L << fingerprintBits) - 1);
+    }
+
+    /**
+     * hash，计算元素的指纹和两个候选桶
+     *
+     * @param value 关键字
+     * @return 指纹和候选桶
+     */
+    public CuckooPosition position(T value) {
+        long hash64 = Hashing.murmur3_128().hashObject(value, funnel).asLong();
+        int fingerprint = (int) ((hash64 >>> 32) % ((1L << fingerprintBits) - 1)) + 1;
+        int index = (int) ((hash64 & 0xffffffffL) % numBuckets);
+        return new CuckooPosition(fingerprint, index, altIndex(index, fingerprint));
+    }
+
+    /**
+     * 另一个候选桶，与cuckoo_insert.lua中的altIndex一致
+     */
+    public int altIndex(int index, int fingerprint) {
+        long fingerprintHash = fingerprint * FINGERPRINT_MULTIPLIER % numBuckets;
+        return (int) Math.floorMod(fingerprintHash - index, (long) numBuckets);
+    }
+
+    /**
+     * 元素的指纹和两个候选桶
+     */
+    public static class CuckooPosition {
+
+        private final int fingerprint;
+
+        private final int index1;
+
+        private final int index2;
+
+        CuckooPosition(int fingerprint, int index1, int index2) {
+            this.fingerprint = fingerprint;
+            this.index1 = index1;
+            this.index2 = index2;
+        }
+
+        public int getFingerprint() {
+            return fingerprint;
+        }
+
+        public int getIndex1() {
+            return index1;
+        }
+
+        public int getIndex2() {
+            return index2;
+        }
+    }
+
+}
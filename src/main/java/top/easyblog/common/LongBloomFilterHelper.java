@@ -0,0 +1,94 @@
+package top.easyblog.common;
+
+import com.google.common.hash.Funnels;
+
+/**
+ * long类型元素的BloomFilterHelper，直接对long做murmur3_128哈希，不经过Funnel和Hasher，
+ * 偏移量写入调用方传入或线程本地的数组，单次计算没有对象分配。
+ * 计算结果与使用{@link Funnels#longFunnel()}的BloomFilterHelper<Long>完全一致，两者可以读写同一个布隆过滤器
+ *
+ * @author Huangxin
+ */
+public class LongBloomFilterHelper extends BloomFilterHelper<Long> {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final ThreadLocal<int[]> offsetBuffer;
+
+    public LongBloomFilterHelper(long expectedInsertions, double fpp) {
+        super(Funnels.longFunnel(), expectedInsertions, fpp);
+        offsetBuffer = ThreadLocal.withInitial(() -> new int[getNumHashFunctions()]);
+    }
+
+    @Override
+    public int[] murmurHashOffset(Long value) {
+        return murmurHashOffset(value, new int[getNumHashFunctions()]);
+    }
+
+    /**
+     * hash，结果写入调用方传入的数组
+     *
+     * @param value  关键字
+     * @param offset 长度不小于getNumHashFunctions()的数组
+     * @return offset
+     */
+    public int[] murmurHashOffset(long value, int[] offset) {
+        int numHashFunctions = getNumHashFunctions();
+        int bitSize = getBitSize();
+        long hash64 = murmur3Hash64(value);
+        int hash1 = (int) hash64;
+        int hash2 = (int) (hash64 >>> 32);
+        for (int i = 1; i <= numHashFunctions; i++) {
+            int nextHash = hash1 + i * hash2;
+            if (nextHash < 0) {
+                nextHash = ~nextHash;
+            }
+            offset[i - 1] = nextHash % bitSize;
+        }
+        return offset;
+    }
+
+    /**
+     * hash，结果写入当前线程复用的数组，返回值在同一线程下一次调用前有效，不能跨线程或长期持有
+     *
+     * @param value 关键字
+     * @return 线程本地的偏移量数组
+     */
+    public int[] threadLocalOffset(long value) {
+        return murmurHashOffset(value, offsetBuffer.get());
+    }
+
+    /**
+     * 8字节输入的murmur3_x64_128，返回值等于Hashing.murmur3_128().hashLong(value).asLong()
+     */
+    static long murmur3Hash64(long value) {
+        long h1 = 0;
+        long h2 = 0;
+        long k1 = value;
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        h1 ^= k1;
+
+        h1 ^= Long.BYTES;
+        h2 ^= Long.BYTES;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        return h1;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+}
@@ -0,0 +1,131 @@
+package top.easyblog.common;
+
+import com.google.common.hash.Funnel;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Longs;
+
+import java.util.Objects;
+
+/**
+ * 按long寻址、分片存储的BloomFilterHelper，用于bit数组超过2^31或者单个Redis字符串过大的场景。
+ * 整个bit数组被切分成numShards个分片，每个分片存放在一个独立的Redis key中，
+ * 元素先根据哈希值选出所在分片，k个bit位全部落在该分片内，所以单个元素的读写只访问一个key
+ *
+ * @param <T>
+ * @author Huangxin
+ */
+public class ShardedBloomFilterHelper<T> {
+
+    /**
+     * 单个分片默认最大bit数(2^28 bit，即32MB)，避免形成大key。Redis单个字符串最多2^32 bit
+     */
+    public static final long DEFAULT_MAX_SHARD_BITS = 1L << 28;
+
+    /**
+     * Redis单个字符串最大bit数
+     */
+    private static final long REDIS_MAX_BITS = 1L << 32;
+
+    private final int numHashFunctions;
+
+    private final long bitSize;
+
+    private final int numShards;
+
+    private final long shardBitSize;
+
+    private final Funnel<T> funnel;
+
+    public ShardedBloomFilterHelper(Funnel<T> funnel, long expectedInsertions, double fpp) {
+        this(funnel, expectedInsertions, fpp, DEFAULT_MAX_SHARD_BITS);
+    }
+
+    public ShardedBloomFilterHelper(Funnel<T> funnel, long expectedInsertions, double fpp, long maxShardBits) {
+        Objects.requireNonNull(funnel, "Funnel<T> funnel不能为空！");
+        if (maxShardBits <= 0 || maxShardBits > REDIS_MAX_BITS) {
+            throw new IllegalArgumentException("illegal parameter: maxShardBits" + maxShardBits);
+        }
+        this.funnel = funnel;
+        long numBits = BloomFilterHelper.optimalNumOfBits(expectedInsertions, fpp);
+        long shards = (numBits + maxShardBits - 1) / maxShardBits;
+        if (shards > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("分片数" + shards + "过多，请调大maxShardBits");
+        }
+        this.numShards = (int) Math.max(1, shards);
+        this.shardBitSize = (numBits + numShards - 1) / numShards;
+        this.bitSize = shardBitSize * numShards;
+        this.numHashFunctions = BloomFilterHelper.optimalNumOfHashFunctions(expectedInsertions, bitSize);
+    }
+
+    public int getNumHashFunctions() {
+        return numHashFunctions;
+    }
+
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    public int getNumShards() {
+        return numShards;
+    }
+
+    public long getShardBitSize() {
+        return shardBitSize;
+    }
+
+    /**
+     * 分片在Redis中的key
+     *
+     * @param key   布隆过滤器名
+     * @param shard 分片序号
+     * @return key:shard
+     */
+    public String shardKey(String key, int shard) {
+        return key + ":" + shard;
+    }
+
+    /**
+     * hash，使用murmur3_128的高低64位做双重哈希，偏移量为分片内的long偏移
+     *
+     * @param value 关键字
+     * @return 分片序号以及分片内的k个偏移量
+     */
+    public ShardedOffset murmurHashOffset(T value) {
+        byte[] bytes = Hashing.murmur3_128().hashObject(value, funnel).asBytes();
+        long hash1 = Longs.fromBytes(bytes[7], bytes[6], bytes[5], bytes[4], bytes[3], bytes[2], bytes[1], bytes[0]);
+        long hash2 = Longs.fromBytes(bytes[15], bytes[14], bytes[13], bytes[12], bytes[11], bytes[10], bytes[9], bytes[8]);
+
+        int shard = Hashing.consistentHash(hash2, numShards);
+        long[] offset = new long[numHashFunctions];
+        long combinedHash = hash1;
+        for (int i = 0; i < numHashFunctions; i++) {
+            offset[i] = (combinedHash & Long.MAX_VALUE) % shardBitSize;
+            combinedHash += hash2;
+        }
+        return new ShardedOffset(shard, offset);
+    }
+
+    /**
+     * 元素所在的分片以及分片内的bit偏移量
+     */
+    public static class ShardedOffset {
+
+        private final int shard;
+
+        private final long[] offset;
+
+        ShardedOffset(int shard, long[] offset) {
+            this.shard = shard;
+            this.offset = offset;
+        }
+
+        public int getShard() {
+            return shard;
+        }
+
+        public long[] getOffset() {
+            return offset;
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package top.easyblog.common.bloom;
+
+import top.easyblog.common.BlockedBloomFilterHelper;
+import top.easyblog.common.enums.RedisDBSelector;
+import top.easyblog.common.util.RedisUtils;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 分块Redis布隆过滤器，单个元素的查询通过一次64字节的GETRANGE完成，添加仍然走Lua脚本
+ *
+ * @param <T> 元素类型
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class BlockedRedisBloomFilter<T> extends RedisBloomFilter<T> {
+
+    private final BlockedBloomFilterHelper<T> blockedHelper;
+
+    private final RedisUtils redisUtils;
+
+    public BlockedRedisBloomFilter(String name, String key, RedisDBSelector dbIndex, BlockedBloomFilterHelper<T> helper, RedisUtils redisUtils) {
+        super(name, key, dbIndex, helper, redisUtils);
+        this.blockedHelper = helper;
+        this.redisUtils = redisUtils;
+    }
+
+    @Override
+    public Boolean mightContain(T value) {
+        return redisUtils.mightContainBlocked(blockedHelper, getKey(), value, getDbIndex());
+    }
+
+    @Override
+    public CompletionStage<Boolean> mightContainAsync(T value) {
+        return redisUtils.mightContainBlockedAsync(blockedHelper, getKey(), value, getDbIndex());
+    }
+
+}
@@ -0,0 +1,78 @@
+package top.easyblog.common.bloom;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 已经绑定了Redis key、数据库和哈希参数的布隆过滤器，由{@link BloomFilterRegistry}在启动时创建
+ *
+ * @param <T> 元素类型
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public interface BloomFilter<T> {
+
+    /**
+     * 布隆过滤器在application.yml中配置的名称
+     */
+    String getName();
+
+    /**
+     * 向布隆过滤器中添加元素
+     *
+     * @param value 值
+     * @return 添加成功返回true, 添加失败返回false
+     */
+    Boolean put(T value);
+
+    /**
+     * 判断元素是否存在
+     *
+     * @param value 值
+     * @return 可能存在返回true，一定不存在false
+     */
+    Boolean mightContain(T value);
+
+    /**
+     * 异步判断元素是否存在，默认实现在调用线程上同步执行{@link #mightContain}，
+     * 基于Redis bitmap的实现会覆盖为真正的异步调用
+     *
+     * @param value 值
+     * @return 可能存在时以true完成，一定不存在时以false完成
+     */
+    default CompletionStage<Boolean> mightContainAsync(T value) {
+        return CompletableFuture.completedFuture(mightContain(value));
+    }
+
+    /**
+     * 删除元素，只能删除确实添加过的元素。只有计数布隆过滤器和布谷鸟过滤器支持删除，
+     * 包装其它布隆过滤器的装饰器需要把删除转发给被包装的布隆过滤器
+     *
+     * @param value 值
+     * @return 删除成功返回true，元素不存在或删除失败返回false
+     * @throws UnsupportedOperationException 布隆过滤器不支持删除
+     */
+    default Boolean remove(T value) {
+        throw new UnsupportedOperationException("布隆过滤器[" + getName() + "]不支持删除");
+    }
+
+    /**
+     * 批量向布隆过滤器中添加元素
+     *
+     * @param values 值
+     * @return 与values迭代顺序一致的添加结果
+     */
+    List<Boolean> putAll(Collection<T> values);
+
+    /**
+     * 批量判断元素是否存在
+     *
+     * @param values 值
+     * @return 与values迭代顺序一致的判断结果
+     */
+    List<Boolean> mightContainAll(Collection<T> values);
+
+}
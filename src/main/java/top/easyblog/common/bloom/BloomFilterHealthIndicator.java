@@ -0,0 +1,34 @@
+package top.easyblog.common.bloom;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.Map;
+
+/**
+ * 布隆过滤器健康检查，详情中给出每个布隆过滤器最近一次的填充率统计。
+ * 有布隆过滤器饱和时状态为SATURATED：查询仍然可用，只是误判率超出预期，不应当让实例下线
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class BloomFilterHealthIndicator implements HealthIndicator {
+
+    public static final Status SATURATED = new Status("SATURATED", "布隆过滤器误判率超出预期，需要扩容重建");
+
+    private final BloomFilterMonitor monitor;
+
+    public BloomFilterHealthIndicator(BloomFilterMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    @Override
+    public Health health() {
+        Map<String, BloomFilterStats> stats = monitor.getStats();
+        boolean saturated = stats.values().stream().anyMatch(BloomFilterStats::isSaturated);
+        return Health.status(saturated ? SATURATED : Status.UP).withDetails(stats).build();
+    }
+
+}
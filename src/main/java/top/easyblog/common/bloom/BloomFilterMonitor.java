@@ -0,0 +1,159 @@
+package top.easyblog.common.bloom;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import top.easyblog.common.BloomFilterHelper;
+import top.easyblog.common.util.RedisUtils;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 布隆过滤器填充率监控。定时用分段BITCOUNT统计bitmap中为1的bit数X，
+ * 估算已插入的元素个数n ≈ -(m / k) * ln(1 - X / m)和当前误判率p ≈ (X / m)^k，与配置的容量和误判率比较。
+ * 估算的误判率超过fpp * saturationFppRatio时认为已经饱和，记录告警日志，并在首次饱和时发布{@link BloomFilterSaturatedEvent}。
+ * 统计结果通过Micrometer的gauge和{@link BloomFilterHealthIndicator}对外暴露。
+ * 只统计单个bitmap存储的布隆过滤器，分块布隆过滤器的实际误判率略高于估算值
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+@Slf4j
+public class BloomFilterMonitor implements Closeable {
+
+    private final Map<String, RedisBloomFilter<?>> filters;
+
+    private final BloomFilterProperties properties;
+
+    private final RedisUtils redisUtils;
+
+    private final ApplicationEventPublisher publisher;
+
+    private final Map<String, BloomFilterStats> stats = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler;
+
+    public BloomFilterMonitor(BloomFilterRegistry registry, BloomFilterProperties properties, RedisUtils redisUtils,
+                              ApplicationEventPublisher publisher, MeterRegistry meterRegistry) {
+        this.filters = registry.getBitmapFilters();
+        this.properties = properties;
+        this.redisUtils = redisUtils;
+        this.publisher = publisher;
+        filters.keySet().forEach(name -> {
+            gauge(meterRegistry, "bloom.filter.fill.ratio", name, BloomFilterStats::getFillRatio);
+            gauge(meterRegistry, "bloom.filter.estimated.insertions", name, BloomFilterStats::getEstimatedInsertions);
+            gauge(meterRegistry, "bloom.filter.estimated.fpp", name, BloomFilterStats::getEstimatedFpp);
+        });
+        BloomFilterProperties.Monitor monitor = properties.getMonitor();
+        if (monitor.isEnabled() && !filters.isEmpty()) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("bloom-monitor").setDaemon(true).build());
+            long interval = monitor.getInterval().toMillis();
+            scheduler.scheduleWithFixedDelay(this::sampleAll, 0, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * 统计所有布隆过滤器，单个布隆过滤器失败不影响其它布隆过滤器，失败的布隆过滤器保留上一次的统计结果
+     */
+    public void sampleAll() {
+        for (String name : filters.keySet()) {
+            try {
+                sample(name);
+            } catch (Exception e) {
+                log.error("布隆过滤器[{}]填充率统计失败: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 立即统计一个布隆过滤器。Redis访问失败时抛出异常，不会把失败当成空bitmap记录下来
+     *
+     * @param name 布隆过滤器名称
+     * @return 统计结果
+     */
+    public BloomFilterStats sample(String name) {
+        RedisBloomFilter<?> filter = filters.get(name);
+        if (filter == null) {
+            throw new IllegalArgumentException("不支持统计填充率的布隆过滤器: " + name);
+        }
+        BloomFilterHelper<?> helper = filter.getHelper();
+        BloomFilterProperties.Filter spec = properties.getFilters().get(name);
+        int chunkBytes = properties.getMonitor().getChunkBytes();
+        long length = redisUtils.strlenOrThrow(filter.getKey(), filter.getDbIndex());
+        long setBits = 0;
+        for (long start = 0; start < length; start += chunkBytes) {
+            Long count = redisUtils.bitCount(filter.getKey(), start, Math.min(start + chunkBytes, length) - 1, filter.getDbIndex());
+            if (count == null) {
+                throw new IllegalStateException("BITCOUNT " + filter.getKey() + "没有返回结果");
+            }
+            setBits += count;
+        }
+
+        BloomFilterStats current = new BloomFilterStats();
+        current.setName(name);
+        current.setBitSize(helper.getBitSize());
+        current.setNumHashFunctions(helper.getNumHashFunctions());
+        current.setSetBits(setBits);
+        current.setFillRatio((double) setBits / helper.getBitSize());
+        current.setEstimatedInsertions(helper.estimateInsertions(setBits));
+        current.setEstimatedFpp(helper.estimateFpp(setBits));
+        current.setExpectedInsertions(spec.getExpectedInsertions());
+        current.setTargetFpp(spec.getFpp());
+        current.setSaturated(current.getEstimatedFpp() > spec.getFpp() * properties.getMonitor().getSaturationFppRatio());
+        current.setSampledAt(System.currentTimeMillis());
+
+        BloomFilterStats previous = stats.put(name, current);
+        if (current.isSaturated()) {
+            log.warn("布隆过滤器[{}]已经饱和: 填充率{}，估算元素个数{}(配置{})，估算误判率{}(配置{})，需要扩容重建",
+                    name, current.getFillRatio(), (long) current.getEstimatedInsertions(), current.getExpectedInsertions(),
+                    current.getEstimatedFpp(), current.getTargetFpp());
+            if (previous == null || !previous.isSaturated()) {
+                publisher.publishEvent(new BloomFilterSaturatedEvent(this, current));
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 最近一次的统计结果，以名称为key，还没有统计过的布隆过滤器不包含在内
+     */
+    public Map<String, BloomFilterStats> getStats() {
+        Map<String, BloomFilterStats> result = new LinkedHashMap<>();
+        filters.keySet().forEach(name -> {
+            BloomFilterStats current = stats.get(name);
+            if (current != null) {
+                result.put(name, current);
+            }
+        });
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void gauge(MeterRegistry registry, String metric, String name, ToDoubleFunction<BloomFilterStats> value) {
+        Gauge.builder(metric, stats, map -> {
+            BloomFilterStats current = map.get(name);
+            return current == null ? Double.NaN : value.applyAsDouble(current);
+        }).tag("filter", name).register(registry);
+    }
+
+}
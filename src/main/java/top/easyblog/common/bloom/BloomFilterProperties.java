@@ -0,0 +1,134 @@
+package top.easyblog.common.bloom;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import top.easyblog.common.ShardedBloomFilterHelper;
+import top.easyblog.common.enums.FunnelType;
+import top.easyblog.common.enums.RedisDBSelector;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 布隆过滤器配置，对应application.yml中的bloom-filter节点
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+@Data
+@ConfigurationProperties(prefix = "bloom-filter")
+public class BloomFilterProperties {
+
+    /**
+     * 以名称为key的布隆过滤器配置
+     */
+    private Map<String, Filter> filters = new LinkedHashMap<>();
+
+    /**
+     * bitmap填充率监控
+     */
+    private Monitor monitor = new Monitor();
+
+    @Data
+    public static class Monitor {
+        /**
+         * 是否定时统计bitmap的填充率
+         */
+        private boolean enabled = true;
+        /**
+         * 统计间隔
+         */
+        private Duration interval = Duration.ofMinutes(5);
+        /**
+         * 每次BITCOUNT统计的字节数，避免单条命令阻塞Redis
+         */
+        private int chunkBytes = 256 * 1024;
+        /**
+         * 估算的误判率超过配置的fpp多少倍时认为布隆过滤器已经饱和
+         */
+        private double saturationFppRatio = 2;
+    }
+
+    @Data
+    public static class Filter {
+        /**
+         * 布隆过滤器在Redis中的key
+         */
+        private String key;
+        /**
+         * 布隆过滤器所在的Redis数据库
+         */
+        private RedisDBSelector dbIndex = RedisDBSelector.DB_0;
+        /**
+         * 预计插入的元素个数
+         */
+        private long expectedInsertions;
+        /**
+         * 期望的误判率
+         */
+        private double fpp = 0.001;
+        /**
+         * 元素写入Hasher的方式
+         */
+        private FunnelType funnel = FunnelType.STRING;
+        /**
+         * 是否将bit数组切分到多个Redis key中，bit数组超过2^31或单个key过大时需要开启
+         */
+        private boolean sharded = false;
+        /**
+         * 开启分片时单个分片的最大bit数
+         */
+        private long maxShardBits = ShardedBloomFilterHelper.DEFAULT_MAX_SHARD_BITS;
+        /**
+         * 是否使用分块布隆过滤器，k个bit位落在同一个512bit的块内，查询只读一个块，误判率略有上升
+         */
+        private boolean blocked = false;
+        /**
+         * 是否使用支持删除的计数布隆过滤器，每个位置为4bit计数器，空间是普通布隆过滤器的4倍
+         */
+        private boolean counting = false;
+        /**
+         * 是否使用可扩容布隆过滤器，expectedInsertions作为第一层的容量，写满后自动追加新层
+         */
+        private boolean scalable = false;
+        /**
+         * 可扩容布隆过滤器每一层相对上一层的容量倍数
+         */
+        private int scalableGrowth = 2;
+        /**
+         * 可扩容布隆过滤器每一层相对上一层的误判率倍数
+         */
+        private double scalableTighteningRatio = 0.5;
+        /**
+         * 是否使用布谷鸟过滤器代替布隆过滤器，低误判率下更省空间，查询只读两个桶，并且支持删除
+         */
+        private boolean cuckoo = false;
+        /**
+         * 是否在本地保存bitmap副本，查询不再访问Redis(不支持分片布隆过滤器)
+         */
+        private boolean nearCacheEnabled = false;
+        /**
+         * 本地副本从Redis刷新的间隔，即本地查询允许的最大延迟
+         */
+        private Duration nearCacheRefreshInterval = Duration.ofSeconds(60);
+        /**
+         * 是否合并多个线程的并发查询，在一个窗口内攒成一批后通过一次pipeline发送(不能与本地副本同时开启)
+         */
+        private boolean coalescingEnabled = false;
+        /**
+         * 合并查询的最长等待窗口，第一个查询到达后开始计时
+         */
+        private Duration coalescingWindow = Duration.ofNanos(200_000);
+        /**
+         * 合并查询每批最多包含的元素个数，攒满后不等窗口结束立即发送
+         */
+        private int coalescingMaxBatch = 256;
+        /**
+         * bitmap本地快照文件，配置后启动时若Redis中没有该key则从快照恢复，应用关闭时导出最新快照
+         */
+        private String snapshotFile;
+    }
+
+}
@@ -0,0 +1,185 @@
+package top.easyblog.common.bloom;
+
+import com.google.common.hash.Funnel;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import top.easyblog.common.BlockedBloomFilterHelper;
+import top.easyblog.common.BloomFilterHelper;
+import top.easyblog.common.CuckooFilterHelper;
+import top.easyblog.common.LongBloomFilterHelper;
+import top.easyblog.common.ShardedBloomFilterHelper;
+import top.easyblog.common.enums.FunnelType;
+import top.easyblog.common.util.RedisUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 具名布隆过滤器注册表，启动时按照{@link BloomFilterProperties}一次性创建所有布隆过滤器，
+ * 读写双方通过名称取到同一个实例，避免每次请求重新计算哈希参数以及两边参数不一致
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+@Slf4j
+public class BloomFilterRegistry implements DisposableBean {
+
+    private final Map<String, BloomFilter<?>> filters = new LinkedHashMap<>();
+
+    /**
+     * 单个bitmap存储的布隆过滤器(不含装饰)，用于统计填充率
+     */
+    private final Map<String, RedisBloomFilter<?>> bitmapFilters = new LinkedHashMap<>();
+
+    /**
+     * 配置了本地快照的布隆过滤器及其快照文件，应用关闭时导出
+     */
+    private final Map<RedisBloomFilter<?>, Path> snapshotFiles = new LinkedHashMap<>();
+
+    private final BloomFilterSnapshot snapshot;
+
+    public BloomFilterRegistry(BloomFilterProperties properties, RedisUtils redisUtils, MeterRegistry meterRegistry) {
+        this.snapshot = new BloomFilterSnapshot(redisUtils);
+        properties.getFilters().forEach((name, spec) -> {
+            filters.put(name, new MeteredBloomFilter<>(createFilter(name, spec, redisUtils), meterRegistry));
+            log.info("布隆过滤器[{}]初始化完成: key={}, db={}, expectedInsertions={}, fpp={}",
+                    name, spec.getKey(), spec.getDbIndex(), spec.getExpectedInsertions(), spec.getFpp());
+        });
+    }
+
+    /**
+     * 根据名称获取布隆过滤器
+     *
+     * @param name application.yml中配置的名称
+     * @param <T>  元素类型
+     * @return 布隆过滤器
+     */
+    @SuppressWarnings("unchecked")
+    public <T> BloomFilter<T> get(String name) {
+        BloomFilter<?> filter = filters.get(name);
+        if (filter == null) {
+            throw new IllegalArgumentException("未配置的布隆过滤器: " + name);
+        }
+        return (BloomFilter<T>) filter;
+    }
+
+    public Collection<BloomFilter<?>> getAll() {
+        return Collections.unmodifiableCollection(filters.values());
+    }
+
+    /**
+     * 以名称为key的单个bitmap存储的布隆过滤器，分片、计数、可扩容布隆过滤器和布谷鸟过滤器不包含在内
+     */
+    public Map<String, RedisBloomFilter<?>> getBitmapFilters() {
+        return Collections.unmodifiableMap(bitmapFilters);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        snapshotFiles.forEach((filter, file) -> {
+            try {
+                snapshot.export(filter, file);
+            } catch (Exception e) {
+                log.error("布隆过滤器[{}]快照导出失败: {}", filter.getName(), e.getMessage());
+            }
+        });
+        for (BloomFilter<?> filter : filters.values()) {
+            if (filter instanceof Closeable) {
+                ((Closeable) filter).close();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private BloomFilter<?> createFilter(String name, BloomFilterProperties.Filter spec, RedisUtils redisUtils) {
+        BloomFilter<?> filter = createRedisFilter(name, spec, redisUtils);
+        if (filter instanceof RedisBloomFilter) {
+            bitmapFilters.put(name, (RedisBloomFilter<?>) filter);
+        }
+        if (spec.getSnapshotFile() != null) {
+            if (!(filter instanceof RedisBloomFilter)) {
+                throw new IllegalArgumentException("布隆过滤器[" + name + "]不支持本地快照");
+            }
+            RedisBloomFilter<?> redisFilter = (RedisBloomFilter<?>) filter;
+            Path file = Paths.get(spec.getSnapshotFile());
+            snapshotFiles.put(redisFilter, file);
+            restoreIfAbsent(redisFilter, file, redisUtils);
+        }
+        if (spec.isNearCacheEnabled()) {
+            if (!(filter instanceof RedisBloomFilter)) {
+                throw new IllegalArgumentException("布隆过滤器[" + name + "]不支持本地副本");
+            }
+            filter = new NearCacheBloomFilter<>((RedisBloomFilter<Object>) filter, redisUtils, spec.getNearCacheRefreshInterval());
+        }
+        if (spec.isCoalescingEnabled()) {
+            if (spec.isNearCacheEnabled()) {
+                throw new IllegalArgumentException("布隆过滤器[" + name + "]开启本地副本后查询不访问Redis，不需要合并查询");
+            }
+            filter = new CoalescingBloomFilter<>((BloomFilter<Object>) filter, spec.getCoalescingWindow(), spec.getCoalescingMaxBatch());
+        }
+        return filter;
+    }
+
+    /**
+     * Redis中没有bitmap(首次启动、被清空或主从切换丢失)且存在快照文件时，从快照恢复
+     */
+    private void restoreIfAbsent(RedisBloomFilter<?> filter, Path file, RedisUtils redisUtils) {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            //访问Redis失败时不能当作key不存在，否则会用旧快照覆盖正在使用的bitmap
+            if (redisUtils.hasKeyOrThrow(filter.getKey(), filter.getDbIndex())) {
+                return;
+            }
+            snapshot.restore(filter, file);
+        } catch (Exception e) {
+            log.error("布隆过滤器[{}]从快照{}恢复失败，需要从数据库重新加载: {}", filter.getName(), file, e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private BloomFilter<?> createRedisFilter(String name, BloomFilterProperties.Filter spec, RedisUtils redisUtils) {
+        Objects.requireNonNull(spec.getKey(), "布隆过滤器[" + name + "]未配置key");
+        Funnel<Object> funnel = (Funnel<Object>) spec.getFunnel().getFunnel();
+        if (spec.isSharded()) {
+            ShardedBloomFilterHelper<Object> helper = new ShardedBloomFilterHelper<>(funnel, spec.getExpectedInsertions(), spec.getFpp(), spec.getMaxShardBits());
+            return new ShardedRedisBloomFilter<>(name, spec.getKey(), spec.getDbIndex(), helper, redisUtils);
+        }
+        if (spec.isCuckoo()) {
+            CuckooFilterHelper<Object> helper = new CuckooFilterHelper<>(funnel, spec.getExpectedInsertions(), spec.getFpp());
+            return new CuckooRedisFilter<>(name, spec.getKey(), spec.getDbIndex(), helper, redisUtils);
+        }
+        if (spec.isScalable()) {
+            return new ScalableRedisBloomFilter<>(name, spec.getKey(), spec.getDbIndex(), funnel, spec.getExpectedInsertions(),
+                    spec.getFpp(), spec.getScalableGrowth(), spec.getScalableTighteningRatio(), redisUtils);
+        }
+        if (spec.isCounting()) {
+            BloomFilterHelper<Object> helper = new BloomFilterHelper<>(funnel, spec.getExpectedInsertions(), spec.getFpp());
+            return new CountingRedisBloomFilter<>(name, spec.getKey(), spec.getDbIndex(), helper, redisUtils);
+        }
+        if (spec.isBlocked()) {
+            BlockedBloomFilterHelper<Object> helper = new BlockedBloomFilterHelper<>(funnel, spec.getExpectedInsertions(), spec.getFpp());
+            log.info("布隆过滤器[{}]使用分块存储: 预计误判率{}，相同bit数的普通布隆过滤器为{}",
+                    name, helper.getExpectedFpp(), helper.getUnblockedFpp());
+            return new BlockedRedisBloomFilter<>(name, spec.getKey(), spec.getDbIndex(), helper, redisUtils);
+        }
+        if (spec.getFunnel() == FunnelType.LONG) {
+            LongBloomFilterHelper helper = new LongBloomFilterHelper(spec.getExpectedInsertions(), spec.getFpp());
+            return new LongRedisBloomFilter(name, spec.getKey(), spec.getDbIndex(), helper, redisUtils);
+        }
+        BloomFilterHelper<Object> helper = new BloomFilterHelper<>(funnel, spec.getExpectedInsertions(), spec.getFpp());
+        return new RedisBloomFilter<>(name, spec.getKey(), spec.getDbIndex(), helper, redisUtils);
+    }
+
+}
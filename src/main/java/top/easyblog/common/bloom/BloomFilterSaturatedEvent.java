@@ -0,0 +1,25 @@
+package top.easyblog.common.bloom;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 布隆过滤器从未饱和变为饱和时发布的事件，监听方可以告警或者用更大的容量重建布隆过滤器
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class BloomFilterSaturatedEvent extends ApplicationEvent {
+
+    private final BloomFilterStats stats;
+
+    public BloomFilterSaturatedEvent(Object source, BloomFilterStats stats) {
+        super(source);
+        this.stats = stats;
+    }
+
+    public BloomFilterStats getStats() {
+        return stats;
+    }
+
+}
@@ -0,0 +1,174 @@
+package top.easyblog.common.bloom;
+
+import lombok.extern.slf4j.Slf4j;
+import top.easyblog.common.BloomFilterHelper;
+import top.easyblog.common.util.RedisUtils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/**
+ * 布隆过滤器bitmap的本地快照。导出时用分段GETRANGE读出bitmap写入内存映射文件，
+ * 文件头记录哈希参数、key和CRC32校验和；导入时校验参数，分段SETRANGE写入临时key，校验和一致后RENAMENX为正式的key，
+ * 不会覆盖已经存在的bitmap。Redis被清空或主从切换丢数据后可以直接从快照恢复，不需要回源数据库
+ *
+ * <pre>
+ * magic(4) version(2) numHashFunctions(4) bitSize(4) keyLength(2) key(n) dataLength(8) crc32(8) data
+ * </pre>
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+@Slf4j
+public class BloomFilterSnapshot {
+
+    /**
+     * 文件头魔数"BFS1"
+     */
+    private static final int MAGIC = 0x42465331;
+
+    private static final short VERSION = 1;
+
+    /**
+     * 每次GETRANGE/SETRANGE的字节数，避免单条命令阻塞Redis
+     */
+    private static final int CHUNK_BYTES = 1024 * 1024;
+
+    private final RedisUtils redisUtils;
+
+    public BloomFilterSnapshot(RedisUtils redisUtils) {
+        this.redisUtils = redisUtils;
+    }
+
+    /**
+     * 把布隆过滤器的bitmap导出到文件，先写临时文件，完成后原子替换，不会留下写了一半的快照
+     *
+     * @param filter 布隆过滤器
+     * @param file   快照文件
+     * @return 导出的bitmap字节数
+     * @throws IOException 写文件失败，或者Redis中没有bitmap，此时已有的快照保持不变
+     */
+    public long export(RedisBloomFilter<?> filter, Path file) throws IOException {
+        long start = System.currentTimeMillis();
+        String key = filter.getKey();
+        BloomFilterHelper<?> helper = filter.getHelper();
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        //读取失败或Redis中没有bitmap(被清空、主从切换)时放弃导出，不能用空快照覆盖上一次完好的快照
+        long length = redisUtils.strlenOrThrow(key, filter.getDbIndex());
+        if (length == 0) {
+            throw new IOException("布隆过滤器[" + filter.getName() + "]在Redis中没有bitmap，保留已有的快照");
+        }
+        int headerLength = headerLength(rawKey);
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (RandomAccessFile raf = new RandomAccessFile(tmp.toFile(), "rw");
+                 FileChannel channel = raf.getChannel()) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, headerLength + length);
+                buffer.putInt(MAGIC)
+                        .putShort(VERSION)
+                        .putInt(helper.getNumHashFunctions())
+                        .putInt(helper.getBitSize())
+                        .putShort((short) rawKey.length)
+                        .put(rawKey)
+                        .putLong(length);
+                int crcPosition = buffer.position();
+                buffer.position(headerLength);
+                CRC32 crc = new CRC32();
+                for (long offset = 0; offset < length; offset += CHUNK_BYTES) {
+                    long end = Math.min(offset + CHUNK_BYTES, length) - 1;
+                    byte[] chunk = redisUtils.getRange(key, offset, end, filter.getDbIndex());
+                    if (chunk == null || chunk.length != end - offset + 1) {
+                        throw new IOException("布隆过滤器[" + filter.getName() + "]导出过程中bitmap被删除或截断");
+                    }
+                    buffer.put(chunk);
+                    crc.update(chunk, 0, chunk.length);
+                }
+                buffer.putLong(crcPosition, crc.getValue());
+                buffer.force();
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        log.info("布隆过滤器[{}]快照导出完成: {}字节, 耗时{}ms", filter.getName(), length, System.currentTimeMillis() - start);
+        return length;
+    }
+
+    /**
+     * 从快照文件恢复布隆过滤器的bitmap，快照的哈希参数必须与布隆过滤器一致
+     *
+     * @param filter 布隆过滤器
+     * @param file   快照文件
+     * @return 恢复的bitmap字节数，key在恢复期间已经被创建时返回0
+     * @throws IOException 读文件失败，或者文件格式、参数、校验和不匹配
+     */
+    public long restore(RedisBloomFilter<?> filter, Path file) throws IOException {
+        long start = System.currentTimeMillis();
+        BloomFilterHelper<?> helper = filter.getHelper();
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r");
+             FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+                throw new IOException("不是布隆过滤器快照文件: " + file);
+            }
+            int numHashFunctions = buffer.getInt();
+            int bitSize = buffer.getInt();
+            if (numHashFunctions != helper.getNumHashFunctions() || bitSize != helper.getBitSize()) {
+                throw new IOException("快照参数(k=" + numHashFunctions + ", m=" + bitSize + ")与布隆过滤器[" + filter.getName()
+                        + "](k=" + helper.getNumHashFunctions() + ", m=" + helper.getBitSize() + ")不一致");
+            }
+            byte[] rawKey = new byte[buffer.getShort()];
+            buffer.get(rawKey);
+            long length = buffer.getLong();
+            long expectedCrc = buffer.getLong();
+            if (length == 0 || buffer.remaining() != length) {
+                throw new IOException("快照文件为空或长度不完整: " + file);
+            }
+            String snapshotKey = new String(rawKey, StandardCharsets.UTF_8);
+            if (!snapshotKey.equals(filter.getKey())) {
+                log.warn("快照来自key[{}]，恢复到布隆过滤器[{}]的key[{}]", snapshotKey, filter.getName(), filter.getKey());
+            }
+            //写入临时key的同时计算校验和，校验通过才覆盖正式的key
+            String tmpKey = filter.getKey() + ":restoring";
+            redisUtils.delete(filter.getDbIndex(), tmpKey);
+            CRC32 crc = new CRC32();
+            byte[] chunk = new byte[(int) Math.min(CHUNK_BYTES, length)];
+            for (long offset = 0; offset < length; offset += CHUNK_BYTES) {
+                int size = (int) Math.min(CHUNK_BYTES, length - offset);
+                if (size != chunk.length) {
+                    chunk = new byte[size];
+                }
+                buffer.get(chunk);
+                crc.update(chunk, 0, size);
+                redisUtils.setRange(tmpKey, chunk, offset, filter.getDbIndex());
+            }
+            if (crc.getValue() != expectedCrc) {
+                redisUtils.delete(filter.getDbIndex(), tmpKey);
+                throw new IOException("快照文件校验和不一致: " + file);
+            }
+            //恢复期间其它节点可能已经写入了新的bitmap，不覆盖已经存在的key
+            if (!redisUtils.renameKeyIfAbsent(tmpKey, filter.getKey(), filter.getDbIndex())) {
+                redisUtils.delete(filter.getDbIndex(), tmpKey);
+                log.warn("布隆过滤器[{}]的key在恢复期间已经被创建，放弃快照恢复", filter.getName());
+                return 0;
+            }
+            log.info("布隆过滤器[{}]从快照恢复完成: {}字节, 耗时{}ms", filter.getName(), length, System.currentTimeMillis() - start);
+            return length;
+        }
+    }
+
+    private static int headerLength(byte[] rawKey) {
+        return Integer.BYTES + Short.BYTES + Integer.BYTES + Integer.BYTES + Short.BYTES + rawKey.length + Long.BYTES + Long.BYTES;
+    }
+
+}
@@ -0,0 +1,58 @@
+package top.easyblog.common.bloom;
+
+import lombok.Data;
+
+/**
+ * 一次BITCOUNT统计得到的布隆过滤器填充情况，以及据此估算的元素个数和误判率
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+@Data
+public class BloomFilterStats {
+    /**
+     * 布隆过滤器名称
+     */
+    private String name;
+    /**
+     * bit数组长度m
+     */
+    private long bitSize;
+    /**
+     * 哈希函数个数k
+     */
+    private int numHashFunctions;
+    /**
+     * 为1的bit数X
+     */
+    private long setBits;
+    /**
+     * 填充率X / m
+     */
+    private double fillRatio;
+    /**
+     * 估算的已插入元素个数
+     */
+    private double estimatedInsertions;
+    /**
+     * 估算的当前误判率
+     */
+    private double estimatedFpp;
+    /**
+     * 配置的预计插入元素个数
+     */
+    private long expectedInsertions;
+    /**
+     * 配置的期望误判率
+     */
+    private double targetFpp;
+    /**
+     * 估算的误判率是否已经超过饱和阈值
+     */
+    private boolean saturated;
+    /**
+     * 统计时间戳(毫秒)
+     */
+    private long sampledAt;
+}
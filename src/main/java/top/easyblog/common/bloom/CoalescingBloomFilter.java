@@ -0,0 +1,173 @@
+package top.easyblog.common.bloom;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合并并发查询的布隆过滤器。各个线程的单个查询先进入队列，由后台线程在一个很短的窗口内收集，
+ * 窗口到期或攒够maxBatch个元素后通过一次{@link BloomFilter#mightContainAll}(pipeline)发给Redis，
+ * 再把结果分别交还给各个调用方。同步的{@link #mightContain}会阻塞到所在批次返回，调用方不需要修改。
+ * 只有查询被合并，添加、删除和批量操作直接交给被包装的布隆过滤器
+ *
+ * @param <T> 元素类型
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+@Slf4j
+public class CoalescingBloomFilter<T> implements BloomFilter<T>, Closeable {
+
+    private final BloomFilter<T> delegate;
+
+    private final long windowNanos;
+
+    private final int maxBatch;
+
+    private final BlockingQueue<Lookup<T>> queue = new LinkedBlockingQueue<>();
+
+    private final Thread flusher;
+
+    private volatile boolean running = true;
+
+    public CoalescingBloomFilter(BloomFilter<T> delegate, Duration window, int maxBatch) {
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("illegal parameter: maxBatch" + maxBatch);
+        }
+        this.delegate = delegate;
+        this.windowNanos = window.toNanos();
+        this.maxBatch = maxBatch;
+        this.flusher = new ThreadFactoryBuilder().setNameFormat("bloom-coalescer-" + delegate.getName())
+                .setDaemon(true).build().newThread(this::flushLoop);
+        flusher.start();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Boolean put(T value) {
+        return delegate.put(value);
+    }
+
+    @Override
+    public Boolean mightContain(T value) {
+        return mightContainAsync(value).toCompletableFuture().join();
+    }
+
+    @Override
+    public CompletionStage<Boolean> mightContainAsync(T value) {
+        if (!running) {
+            return delegate.mightContainAsync(value);
+        }
+        Lookup<T> lookup = new Lookup<>(value);
+        queue.add(lookup);
+        //入队时恰好关闭，后台线程可能已经退出，自己取回来直接查询
+        if (!running && queue.remove(lookup)) {
+            return delegate.mightContainAsync(value);
+        }
+        return lookup.result;
+    }
+
+    @Override
+    public Boolean remove(T value) {
+        return delegate.remove(value);
+    }
+
+    @Override
+    public List<Boolean> putAll(Collection<T> values) {
+        return delegate.putAll(values);
+    }
+
+    @Override
+    public List<Boolean> mightContainAll(Collection<T> values) {
+        return delegate.mightContainAll(values);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        flusher.interrupt();
+    }
+
+    /**
+     * 阻塞等待第一个查询，从它到达开始计时，在窗口内继续收集，窗口到期或攒满一批后立即发送
+     */
+    private void flushLoop() {
+        List<Lookup<T>> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    //先取走已经排队的查询，队列为空时才等待到窗口结束
+                    if (queue.drainTo(batch, maxBatch - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Lookup<T> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flush(batch);
+            batch.clear();
+        }
+        //关闭后把队列中剩余的查询发送完，不让调用方一直等待
+        queue.drainTo(batch);
+        flush(batch);
+    }
+
+    private void flush(List<Lookup<T>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<T> values = new ArrayList<>(batch.size());
+        for (Lookup<T> lookup : batch) {
+            values.add(lookup.value);
+        }
+        try {
+            List<Boolean> result = delegate.mightContainAll(values);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(!Boolean.FALSE.equals(result.get(i)));
+            }
+        } catch (Exception e) {
+            log.error("布隆过滤器[{}]合并查询失败: {}", getName(), e.getMessage());
+            //与单个查询的失败处理一致，认为元素可能存在
+            for (Lookup<T> lookup : batch) {
+                lookup.result.complete(true);
+            }
+        }
+    }
+
+    private static class Lookup<T> {
+
+        private final T value;
+
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private Lookup(T value) {
+            this.value = value;
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+package top.easyblog.common.bloom;
+
+import top.easyblog.common.BloomFilterHelper;
+import top.easyblog.common.enums.RedisDBSelector;
+import top.easyblog.common.util.RedisUtils;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 支持删除的计数布隆过滤器，每个位置是一个4bit计数器，通过BITFIELD读写，空间占用是普通布隆过滤器的4倍，
+ * 因此bit数组长度最多2^30，否则计数器超出Redis单个字符串2^32 bit的上限
+ *
+ * @param <T> 元素类型
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class CountingRedisBloomFilter<T> implements BloomFilter<T> {
+
+    /**
+     * 每个计数器占用的bit数，与BITFIELD使用的u4一致
+     */
+    public static final int COUNTER_BITS = 4;
+
+    /**
+     * Redis单个字符串最大bit数
+     */
+    private static final long REDIS_MAX_BITS = 1L << 32;
+
+    private final String name;
+
+    private final String key;
+
+    private final RedisDBSelector dbIndex;
+
+    private final BloomFilterHelper<T> helper;
+
+    private final RedisUtils redisUtils;
+
+    public CountingRedisBloomFilter(String name, String key, RedisDBSelector dbIndex, BloomFilterHelper<T> helper, RedisUtils redisUtils) {
+        long counterBits = (long) helper.getBitSize() * COUNTER_BITS;
+        if (counterBits > REDIS_MAX_BITS) {
+            throw new IllegalArgumentException("计数布隆过滤器[" + name + "]需要" + counterBits
+                    + " bit，超过了Redis单个字符串2^32 bit的上限，请减小预计元素个数或调大误判率");
+        }
+        this.name = name;
+        this.key = key;
+        this.dbIndex = dbIndex;
+        this.helper = helper;
+        this.redisUtils = redisUtils;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public RedisDBSelector getDbIndex() {
+        return dbIndex;
+    }
+
+    public BloomFilterHelper<T> getHelper() {
+        return helper;
+    }
+
+    @Override
+    public Boolean put(T value) {
+        return redisUtils.add2CountingBloomFilter(helper, key, value, dbIndex);
+    }
+
+    @Override
+    public Boolean mightContain(T value) {
+        return redisUtils.mightContainCounting(helper, key, value, dbIndex);
+    }
+
+    /**
+     * 删除元素，只能删除确实添加过的元素
+     *
+     * @param value 值
+     * @return 删除成功返回true，元素不存在或删除失败返回false
+     */
+    @Override
+    public Boolean remove(T value) {
+        return redisUtils.removeFromCountingBloomFilter(helper, key, value, dbIndex);
+    }
+
+    @Override
+    public List<Boolean> putAll(Collection<T> values) {
+        return redisUtils.addAllCounting(helper, key, values, dbIndex);
+    }
+
+    @Override
+    public List<Boolean> mightContainAll(Collection<T> values) {
+        return redisUtils.mightContainAllCounting(helper, key, values, dbIndex);
+    }
+
+}
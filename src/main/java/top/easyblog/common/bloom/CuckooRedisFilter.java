@@ -0,0 +1,94 @@
+package top.easyblog.common.bloom;
+
+import top.easyblog.common.CuckooFilterHelper;
+import top.easyblog.common.enums.RedisDBSelector;
+import top.easyblog.common.util.RedisUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 基于Redis字符串的布谷鸟过滤器，与布隆过滤器使用相同的接口，额外支持删除
+ *
+ * @param <T> 元素类型
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class CuckooRedisFilter<T> implements BloomFilter<T> {
+
+    private final String name;
+
+    private final String key;
+
+    private final RedisDBSelector dbIndex;
+
+    private final CuckooFilterHelper<T> helper;
+
+    private final RedisUtils redisUtils;
+
+    public CuckooRedisFilter(String name, String key, RedisDBSelector dbIndex, CuckooFilterHelper<T> helper, RedisUtils redisUtils) {
+        this.name = name;
+        this.key = key;
+        this.dbIndex = dbIndex;
+        this.helper = helper;
+        this.redisUtils = redisUtils;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public RedisDBSelector getDbIndex() {
+        return dbIndex;
+    }
+
+    public CuckooFilterHelper<T> getHelper() {
+        return helper;
+    }
+
+    @Override
+    public Boolean put(T value) {
+        return redisUtils.add2CuckooFilter(helper, key, value, dbIndex);
+    }
+
+    @Override
+    public Boolean mightContain(T value) {
+        return redisUtils.mightContainCuckoo(helper, key, value, dbIndex);
+    }
+
+    /**
+     * 删除元素，只能删除确实添加过的元素
+     *
+     * @param value 值
+     * @return 删除成功返回true，元素不存在或删除失败返回false
+     */
+    @Override
+    public Boolean remove(T value) {
+        return redisUtils.removeFromCuckooFilter(helper, key, value, dbIndex);
+    }
+
+    /**
+     * 布谷鸟过滤器的插入需要在脚本中查找空槽位，逐个元素调用
+     */
+    @Override
+    public List<Boolean> putAll(Collection<T> values) {
+        List<Boolean> result = new ArrayList<>(values.size());
+        for (T value : values) {
+            result.add(put(value));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Boolean> mightContainAll(Collection<T> values) {
+        return redisUtils.mightContainAllCuckoo(helper, key, values, dbIndex);
+    }
+
+}
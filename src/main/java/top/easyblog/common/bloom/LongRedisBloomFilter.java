@@ -0,0 +1,51 @@
+package top.easyblog.common.bloom;
+
+import top.easyblog.common.LongBloomFilterHelper;
+import top.easyblog.common.enums.RedisDBSelector;
+import top.easyblog.common.util.RedisUtils;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * long元素的Redis布隆过滤器，单个元素的读写走{@link LongBloomFilterHelper}的无分配哈希
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class LongRedisBloomFilter extends RedisBloomFilter<Long> {
+
+    private final LongBloomFilterHelper longHelper;
+
+    private final RedisUtils redisUtils;
+
+    public LongRedisBloomFilter(String name, String key, RedisDBSelector dbIndex, LongBloomFilterHelper helper, RedisUtils redisUtils) {
+        super(name, key, dbIndex, helper, redisUtils);
+        this.longHelper = helper;
+        this.redisUtils = redisUtils;
+    }
+
+    @Override
+    public Boolean put(Long value) {
+        return put(value.longValue());
+    }
+
+    @Override
+    public Boolean mightContain(Long value) {
+        return mightContain(value.longValue());
+    }
+
+    @Override
+    public CompletionStage<Boolean> mightContainAsync(Long value) {
+        return redisUtils.mightContainLongAsync(longHelper, getKey(), value, getDbIndex());
+    }
+
+    public Boolean put(long value) {
+        return redisUtils.add2LongBloomFilter(longHelper, getKey(), value, getDbIndex());
+    }
+
+    public Boolean mightContain(long value) {
+        return redisUtils.mightContainLong(longHelper, getKey(), value, getDbIndex());
+    }
+
+}
@@ -0,0 +1,133 @@
+package top.easyblog.common.bloom;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录Micrometer指标的布隆过滤器，包装{@link BloomFilterRegistry}创建的任意布隆过滤器：
+ * <ul>
+ *     <li>bloom.filter.operations：各操作的耗时，带百分位直方图，tag为filter和operation</li>
+ *     <li>bloom.filter.lookups：查询结果计数，tag为filter和result(positive/negative)，批量查询按元素计数</li>
+ * </ul>
+ * 被包装的布隆过滤器出错时按可能存在处理，计入positive
+ *
+ * @param <T> 元素类型
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class MeteredBloomFilter<T> implements BloomFilter<T>, Closeable {
+
+    private final BloomFilter<T> delegate;
+
+    private final Timer putTimer;
+
+    private final Timer mightContainTimer;
+
+    private final Timer putAllTimer;
+
+    private final Timer mightContainAllTimer;
+
+    private final Timer removeTimer;
+
+    private final Counter positives;
+
+    private final Counter negatives;
+
+    public MeteredBloomFilter(BloomFilter<T> delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.putTimer = timer(registry, "put");
+        this.mightContainTimer = timer(registry, "mightContain");
+        this.putAllTimer = timer(registry, "putAll");
+        this.mightContainAllTimer = timer(registry, "mightContainAll");
+        this.removeTimer = timer(registry, "remove");
+        this.positives = counter(registry, "positive");
+        this.negatives = counter(registry, "negative");
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Boolean put(T value) {
+        return putTimer.record(() -> delegate.put(value));
+    }
+
+    @Override
+    public Boolean mightContain(T value) {
+        Boolean result = mightContainTimer.record(() -> delegate.mightContain(value));
+        count(result);
+        return result;
+    }
+
+    @Override
+    public CompletionStage<Boolean> mightContainAsync(T value) {
+        long start = System.nanoTime();
+        return delegate.mightContainAsync(value).whenComplete((result, e) -> {
+            mightContainTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            count(e == null ? result : Boolean.TRUE);
+        });
+    }
+
+    @Override
+    public List<Boolean> putAll(Collection<T> values) {
+        return putAllTimer.record(() -> delegate.putAll(values));
+    }
+
+    @Override
+    public List<Boolean> mightContainAll(Collection<T> values) {
+        List<Boolean> result = mightContainAllTimer.record(() -> delegate.mightContainAll(values));
+        if (result != null) {
+            result.forEach(this::count);
+        }
+        return result;
+    }
+
+    @Override
+    public Boolean remove(T value) {
+        return removeTimer.record(() -> delegate.remove(value));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable) {
+            ((Closeable) delegate).close();
+        }
+    }
+
+    private void count(Boolean result) {
+        if (Boolean.FALSE.equals(result)) {
+            negatives.increment();
+        } else {
+            positives.increment();
+        }
+    }
+
+    private Timer timer(MeterRegistry registry, String operation) {
+        return Timer.builder("bloom.filter.operations")
+                .description("布隆过滤器操作耗时")
+                .tag("filter", delegate.getName())
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder("bloom.filter.lookups")
+                .description("布隆过滤器查询结果")
+                .tag("filter", delegate.getName())
+                .tag("result", result)
+                .register(registry);
+    }
+
+}
@@ -0,0 +1,229 @@
+package top.easyblog.common.bloom;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import top.easyblog.common.BloomFilterHelper;
+import top.easyblog.common.util.RedisUtils;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 带进程内镜像的Redis布隆过滤器。bitmap在本地保存一份副本并按固定间隔用分段GETRANGE从Redis刷新，
+ * 查询只访问本地副本，不产生网络IO；添加时先写Redis再写本地副本。
+ * 其它节点写入的元素最多延迟一个刷新周期才能在本地查到，首次加载完成前查询直接走Redis
+ *
+ * @param <T> 元素类型
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+@Slf4j
+public class NearCacheBloomFilter<T> implements BloomFilter<T>, Closeable {
+
+    /**
+     * 每次GETRANGE读取的字节数，避免单次读取阻塞Redis
+     */
+    private static final int CHUNK_BYTES = 1024 * 1024;
+
+    private final RedisBloomFilter<T> delegate;
+
+    private final RedisUtils redisUtils;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final int words;
+
+    private final Object lock = new Object();
+
+    /**
+     * 刷新期间本地写入的偏移量，刷新完成后重放到新副本中，避免新副本丢失刷新过程中写入的bit
+     */
+    private final List<int[]> pendingOffsets = new ArrayList<>();
+
+    private volatile AtomicLongArray bits;
+
+    private volatile boolean loaded = false;
+
+    private boolean refreshing = false;
+
+    public NearCacheBloomFilter(RedisBloomFilter<T> delegate, RedisUtils redisUtils, Duration refreshInterval) {
+        this.delegate = delegate;
+        this.redisUtils = redisUtils;
+        this.words = (delegate.getHelper().getBitSize() + Long.SIZE - 1) / Long.SIZE;
+        this.bits = new AtomicLongArray(words);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("bloom-near-cache-" + delegate.getName()).setDaemon(true).build());
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @Override
+    public Boolean put(T value) {
+        Boolean added = delegate.put(value);
+        if (Boolean.TRUE.equals(added)) {
+            setLocal(delegate.getHelper().murmurHashOffset(value));
+        }
+        return added;
+    }
+
+    @Override
+    public Boolean mightContain(T value) {
+        if (!loaded) {
+            return delegate.mightContain(value);
+        }
+        return containsLocal(delegate.getHelper().murmurHashOffset(value));
+    }
+
+    @Override
+    public CompletionStage<Boolean> mightContainAsync(T value) {
+        if (!loaded) {
+            return delegate.mightContainAsync(value);
+        }
+        return CompletableFuture.completedFuture(containsLocal(delegate.getHelper().murmurHashOffset(value)));
+    }
+
+    @Override
+    public List<Boolean> putAll(Collection<T> values) {
+        List<Boolean> result = delegate.putAll(values);
+        BloomFilterHelper<T> helper = delegate.getHelper();
+        Iterator<Boolean> added = result.iterator();
+        for (T value : values) {
+            if (Boolean.TRUE.equals(added.next())) {
+                setLocal(helper.murmurHashOffset(value));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Boolean> mightContainAll(Collection<T> values) {
+        if (!loaded) {
+            return delegate.mightContainAll(values);
+        }
+        List<Boolean> result = new ArrayList<>(values.size());
+        for (T value : values) {
+            result.add(containsLocal(delegate.getHelper().murmurHashOffset(value)));
+        }
+        return result;
+    }
+
+    /**
+     * 从Redis重新加载bitmap，也可以在收到变更通知时主动调用。读取失败或Redis中没有bitmap时抛出异常，保留当前副本
+     */
+    public void refresh() {
+        synchronized (lock) {
+            refreshing = true;
+            pendingOffsets.clear();
+        }
+        try {
+            long[] fresh = new long[words];
+            String key = delegate.getKey();
+            //读取失败或bitmap为空时保留当前副本，全0的副本会让存在的元素被判定为不存在
+            long length = redisUtils.strlenOrThrow(key, delegate.getDbIndex());
+            if (length == 0) {
+                throw new IllegalStateException("Redis中没有bitmap: " + key);
+            }
+            for (long start = 0; start < length; start += CHUNK_BYTES) {
+                long end = Math.min(start + CHUNK_BYTES, length) - 1;
+                byte[] chunk = redisUtils.getRange(key, start, end, delegate.getDbIndex());
+                if (chunk == null || chunk.length != end - start + 1) {
+                    throw new IllegalStateException("bitmap在刷新过程中被删除或截断: " + key);
+                }
+                copyBits(chunk, start, fresh);
+            }
+            AtomicLongArray snapshot = new AtomicLongArray(fresh);
+            synchronized (lock) {
+                for (int[] offset : pendingOffsets) {
+                    setBits(snapshot, offset);
+                }
+                bits = snapshot;
+                loaded = true;
+            }
+        } finally {
+            synchronized (lock) {
+                refreshing = false;
+                pendingOffsets.clear();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("布隆过滤器[{}]本地副本刷新失败，继续使用{}: {}", getName(), loaded ? "上一次的副本" : "Redis", e.getMessage());
+        }
+    }
+
+    private boolean containsLocal(int[] offset) {
+        AtomicLongArray current = bits;
+        for (int i : offset) {
+            if ((current.get(i >>> 6) & (1L << (i & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void setLocal(int[] offset) {
+        synchronized (lock) {
+            setBits(bits, offset);
+            if (refreshing) {
+                pendingOffsets.add(offset);
+            }
+        }
+    }
+
+    private static void setBits(AtomicLongArray target, int[] offset) {
+        for (int i : offset) {
+            target.getAndAccumulate(i >>> 6, 1L << (i & 63), (prev, mask) -> prev | mask);
+        }
+    }
+
+    /**
+     * Redis bitmap中offset对应第offset/8个字节的第(7 - offset%8)位(高位在前)，
+     * 这里把每个字节按位反转后放入long中，使offset对应long数组中第offset位(低位在前)
+     */
+    private void copyBits(byte[] chunk, long startByte, long[] target) {
+        if (chunk == null) {
+            return;
+        }
+        for (int j = 0; j < chunk.length; j++) {
+            if (chunk[j] == 0) {
+                continue;
+            }
+            long bitIndex = (startByte + j) << 3;
+            int word = (int) (bitIndex >>> 6);
+            if (word >= target.length) {
+                break;
+            }
+            long reversed = Integer.reverse(chunk[j] & 0xFF) >>> 24;
+            target[word] |= reversed << (bitIndex & 63);
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+package top.easyblog.common.bloom;
+
+import top.easyblog.common.BloomFilterHelper;
+import top.easyblog.common.enums.RedisDBSelector;
+import top.easyblog.common.util.RedisUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 基于Redis bitmap的布隆过滤器，单个元素的读写通过Lua脚本一次往返完成，批量读写走pipeline
+ *
+ * @param <T> 元素类型
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class RedisBloomFilter<T> implements BloomFilter<T> {
+
+    private final String name;
+
+    private final String key;
+
+    private final RedisDBSelector dbIndex;
+
+    private final BloomFilterHelper<T> helper;
+
+    private final RedisUtils redisUtils;
+
+    public RedisBloomFilter(String name, String key, RedisDBSelector dbIndex, BloomFilterHelper<T> helper, RedisUtils redisUtils) {
+        this.name = name;
+        this.key = key;
+        this.dbIndex = dbIndex;
+        this.helper = helper;
+        this.redisUtils = redisUtils;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public RedisDBSelector getDbIndex() {
+        return dbIndex;
+    }
+
+    public BloomFilterHelper<T> getHelper() {
+        return helper;
+    }
+
+    @Override
+    public Boolean put(T value) {
+        return redisUtils.add2BloomFilterByScript(helper, key, value, dbIndex);
+    }
+
+    @Override
+    public Boolean mightContain(T value) {
+        return redisUtils.mightContainByScript(helper, key, value, dbIndex);
+    }
+
+    @Override
+    public CompletionStage<Boolean> mightContainAsync(T value) {
+        return redisUtils.mightContainAsync(helper, key, value, dbIndex);
+    }
+
+    @Override
+    public List<Boolean> putAll(Collection<T> values) {
+        return redisUtils.addAll(helper, key, values, dbIndex);
+    }
+
+    @Override
+    public List<Boolean> mightContainAll(Collection<T> values) {
+        return redisUtils.mightContainAll(helper, key, values, dbIndex);
+    }
+
+}
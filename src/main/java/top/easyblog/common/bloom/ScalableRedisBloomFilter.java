@@ -0,0 +1,291 @@
+package top.easyblog.common.bloom;
+
+import com.google.common.collect.Lists;
+import com.google.common.hash.Funnel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import top.easyblog.common.BloomFilterHelper;
+import top.easyblog.common.enums.RedisDBSelector;
+import top.easyblog.common.util.RedisUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 可扩容(scalable)布隆过滤器。元素写入最新的一层，每层的元素个数记录在Redis中，
+ * 当前层达到容量时自动追加一层，新层容量为上一层的growth倍、误判率为上一层的tighteningRatio倍，
+ * 总误判率不超过配置的fpp。查询时一次pipeline读取层数和所有层的bit位，从最新层开始判断。
+ * <p>
+ * Redis中的key：key:layers(层数)，key:i(第i层bitmap)，key:count:i(第i层元素个数)
+ *
+ * @param <T> 元素类型
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+@Slf4j
+public class ScalableRedisBloomFilter<T> implements BloomFilter<T> {
+
+    /**
+     * 每个pipeline包含的元素个数
+     */
+    private static final int CHUNK_SIZE = 1000;
+
+    private final String name;
+
+    private final String key;
+
+    private final RedisDBSelector dbIndex;
+
+    private final Funnel<T> funnel;
+
+    private final long initialCapacity;
+
+    private final double fpp;
+
+    private final int growth;
+
+    private final double tighteningRatio;
+
+    private final RedisUtils redisUtils;
+
+    /**
+     * 下标即层序号
+     */
+    private final List<BloomFilterHelper<T>> layerHelpers = new CopyOnWriteArrayList<>();
+
+    /**
+     * 本地缓存的层数，写入时脚本会校验，查询时与Redis中的层数一起读取
+     */
+    private volatile int layers = 1;
+
+    public ScalableRedisBloomFilter(String name, String key, RedisDBSelector dbIndex, Funnel<T> funnel, long initialCapacity,
+                                    double fpp, int growth, double tighteningRatio, RedisUtils redisUtils) {
+        if (growth < 1 || tighteningRatio <= 0 || tighteningRatio >= 1) {
+            throw new IllegalArgumentException("illegal parameter: growth" + growth + ", tighteningRatio" + tighteningRatio);
+        }
+        this.name = name;
+        this.key = key;
+        this.dbIndex = dbIndex;
+        this.funnel = funnel;
+        this.initialCapacity = initialCapacity;
+        this.fpp = fpp;
+        this.growth = growth;
+        this.tighteningRatio = tighteningRatio;
+        this.redisUtils = redisUtils;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public RedisDBSelector getDbIndex() {
+        return dbIndex;
+    }
+
+    public int getLayers() {
+        return layers;
+    }
+
+    /**
+     * 第layer层的容量：initialCapacity * growth^layer
+     */
+    public long layerCapacity(int layer) {
+        double capacity = initialCapacity * Math.pow(growth, layer);
+        return capacity >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) capacity;
+    }
+
+    /**
+     * 第layer层的误判率：fpp * (1 - r) * r^layer，各层之和不超过fpp
+     */
+    public double layerFpp(int layer) {
+        return fpp * (1 - tighteningRatio) * Math.pow(tighteningRatio, layer);
+    }
+
+    public String layerKey(int layer) {
+        return key + ":" + layer;
+    }
+
+    private String countKey(int layer) {
+        return key + ":count:" + layer;
+    }
+
+    private String layersKey() {
+        return key + ":layers";
+    }
+
+    @Override
+    public Boolean put(T value) {
+        //已经存在的元素不再写入，避免重复计数
+        if (mightContain(value)) {
+            return true;
+        }
+        return putAbsent(Collections.singletonList(value)).get(0);
+    }
+
+    @Override
+    public Boolean mightContain(T value) {
+        return mightContainAll(Collections.singletonList(value)).get(0);
+    }
+
+    @Override
+    public List<Boolean> putAll(Collection<T> values) {
+        List<T> list = new ArrayList<>(values);
+        List<Boolean> present = mightContainAll(list);
+        List<T> absent = new ArrayList<>();
+        for (int i = 0; i < list.size(); i++) {
+            if (!present.get(i)) {
+                absent.add(list.get(i));
+            }
+        }
+        Boolean[] result = new Boolean[list.size()];
+        List<Boolean> added = putAbsent(absent);
+        for (int i = 0, j = 0; i < list.size(); i++) {
+            result[i] = present.get(i) ? Boolean.TRUE : added.get(j++);
+        }
+        return Arrays.asList(result);
+    }
+
+    @Override
+    public List<Boolean> mightContainAll(Collection<T> values) {
+        List<Boolean> result = new ArrayList<>(values.size());
+        for (List<T> chunk : Lists.partition(new ArrayList<>(values), CHUNK_SIZE)) {
+            try {
+                result.addAll(mightContainChunk(chunk));
+            } catch (Exception e) {
+                //与mightContain保持一致，出错时当作可能存在处理
+                log.error(e.getMessage());
+                result.addAll(Collections.nCopies(chunk.size(), Boolean.TRUE));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 一次pipeline读取层数以及每个元素在各层中的bit位，Redis中的层数比本地多时更新层数重新查询
+     */
+    private List<Boolean> mightContainChunk(List<T> chunk) {
+        RedisTemplate<String, Object> template = template();
+        while (true) {
+            int n = layers;
+            List<List<int[]>> offsets = new ArrayList<>(chunk.size());
+            for (T value : chunk) {
+                List<int[]> layerOffsets = new ArrayList<>(n);
+                for (int layer = n - 1; layer >= 0; layer--) {
+                    layerOffsets.add(helper(layer).murmurHashOffset(value));
+                }
+                offsets.add(layerOffsets);
+            }
+            List<Object> replies = template.executePipelined((RedisCallback<Object>) connection -> {
+                connection.get(raw(layersKey()));
+                for (List<int[]> layerOffsets : offsets) {
+                    for (int i = 0; i < n; i++) {
+                        byte[] layerKey = raw(layerKey(n - 1 - i));
+                        for (int offset : layerOffsets.get(i)) {
+                            connection.getBit(layerKey, offset);
+                        }
+                    }
+                }
+                return null;
+            }, template.getStringSerializer());
+
+            int serverLayers = replies.get(0) == null ? 1 : Integer.parseInt((String) replies.get(0));
+            if (serverLayers > n) {
+                layers = serverLayers;
+                continue;
+            }
+            List<Boolean> result = new ArrayList<>(chunk.size());
+            int cursor = 1;
+            for (List<int[]> layerOffsets : offsets) {
+                boolean contain = false;
+                for (int[] layerOffset : layerOffsets) {
+                    boolean inLayer = true;
+                    for (int i = 0; i < layerOffset.length; i++) {
+                        inLayer &= Boolean.TRUE.equals(replies.get(cursor++));
+                    }
+                    contain |= inLayer;
+                }
+                result.add(contain);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 把元素写入最新一层，写入期间层数变化(其它节点扩容或本批次写满)的元素用最新层数重试
+     */
+    private List<Boolean> putAbsent(List<T> values) {
+        Boolean[] result = new Boolean[values.size()];
+        Arrays.fill(result, Boolean.FALSE);
+        List<Integer> pending = new ArrayList<>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            pending.add(i);
+        }
+        while (!pending.isEmpty()) {
+            int layer = layers - 1;
+            BloomFilterHelper<T> helper = helper(layer);
+            List<Integer> retry = new ArrayList<>();
+            for (List<Integer> chunk : Lists.partition(pending, CHUNK_SIZE)) {
+                try {
+                    List<int[]> offsets = new ArrayList<>(chunk.size());
+                    for (Integer index : chunk) {
+                        offsets.add(helper.murmurHashOffset(values.get(index)));
+                    }
+                    List<Long> replies = redisUtils.addAllToScalableLayer(layersKey(), layerKey(layer), countKey(layer),
+                            layer, layerCapacity(layer), offsets, dbIndex);
+                    for (int i = 0; i < chunk.size(); i++) {
+                        long reply = replies.get(i);
+                        if (reply > 0) {
+                            layers = Math.max(layers, (int) reply);
+                            result[chunk.get(i)] = Boolean.TRUE;
+                        } else {
+                            //层序号已经过期，Redis中的层数就是最新值
+                            layers = (int) -reply;
+                            retry.add(chunk.get(i));
+                        }
+                    }
+                } catch (Exception e) {
+                    log.error(e.getMessage());
+                }
+            }
+            if (retry.size() == pending.size() && layers == layer + 1) {
+                //层数没有变化也没有任何元素写入成功，放弃剩余元素
+                break;
+            }
+            pending = retry;
+        }
+        return Arrays.asList(result);
+    }
+
+    private BloomFilterHelper<T> helper(int layer) {
+        if (layer >= layerHelpers.size()) {
+            synchronized (layerHelpers) {
+                for (int i = layerHelpers.size(); i <= layer; i++) {
+                    layerHelpers.add(new BloomFilterHelper<>(funnel, layerCapacity(i), layerFpp(i)));
+                }
+            }
+        }
+        return layerHelpers.get(layer);
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisTemplate<String, Object> template() {
+        return redisUtils.getRedisTemplate(dbIndex);
+    }
+
+    private static byte[] raw(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,75 @@
+package top.easyblog.common.bloom;
+
+import top.easyblog.common.ShardedBloomFilterHelper;
+import top.easyblog.common.enums.RedisDBSelector;
+import top.easyblog.common.util.RedisUtils;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 分片存储的Redis布隆过滤器，bit数组按{@link ShardedBloomFilterHelper}切分到key:0 ~ key:(numShards-1)中
+ *
+ * @param <T> 元素类型
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class ShardedRedisBloomFilter<T> implements BloomFilter<T> {
+
+    private final String name;
+
+    private final String key;
+
+    private final RedisDBSelector dbIndex;
+
+    private final ShardedBloomFilterHelper<T> helper;
+
+    private final RedisUtils redisUtils;
+
+    public ShardedRedisBloomFilter(String name, String key, RedisDBSelector dbIndex, ShardedBloomFilterHelper<T> helper, RedisUtils redisUtils) {
+        this.name = name;
+        this.key = key;
+        this.dbIndex = dbIndex;
+        this.helper = helper;
+        this.redisUtils = redisUtils;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public RedisDBSelector getDbIndex() {
+        return dbIndex;
+    }
+
+    public ShardedBloomFilterHelper<T> getHelper() {
+        return helper;
+    }
+
+    @Override
+    public Boolean put(T value) {
+        return redisUtils.add2ShardedBloomFilter(helper, key, value, dbIndex);
+    }
+
+    @Override
+    public Boolean mightContain(T value) {
+        return redisUtils.mightContainSharded(helper, key, value, dbIndex);
+    }
+
+    @Override
+    public List<Boolean> putAll(Collection<T> values) {
+        return redisUtils.addAllSharded(helper, key, values, dbIndex);
+    }
+
+    @Override
+    public List<Boolean> mightContainAll(Collection<T> values) {
+        return redisUtils.mightContainAllSharded(helper, key, values, dbIndex);
+    }
+
+}
@@ -0,0 +1,139 @@
+package top.easyblog.common.codec;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 紧凑二进制编解码器的基类。编码结果以一个魔数字节开头，随后是子类按固定顺序写入的字段，
+ * 整数使用变长编码，字符串为长度加UTF-8字节，null字段写为0，旧数据中缺少的末尾字段读出为null。
+ * 首字节不是魔数时认为是旧的JSON格式，交给fallback解码，切换编码器时不需要清空缓存。
+ * 被截断或损坏的数据解码为null，与缓存未命中一样处理
+ *
+ * @param <T> 实体类型
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+@Slf4j
+public abstract class BinaryValueCodec<T> implements ValueCodec<T> {
+
+    /**
+     * 二进制格式的首字节，不是合法JSON的开头字符
+     */
+    public static final byte MAGIC = (byte) 0xB1;
+
+    private final ValueCodec<T> fallback;
+
+    protected BinaryValueCodec(ValueCodec<T> fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public byte[] encode(T value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(MAGIC);
+        write(value, out);
+        return out.toByteArray();
+    }
+
+    @Override
+    public T decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallback.decode(bytes);
+        }
+        try {
+            return read(ByteBuffer.wrap(bytes, 1, bytes.length - 1));
+        } catch (RuntimeException e) {
+            log.warn("无法解析的二进制缓存值({}字节): {}", bytes.length, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * 按固定顺序写入字段
+     */
+    protected abstract void write(T value, ByteArrayOutputStream out);
+
+    /**
+     * 按写入时的顺序读取字段
+     */
+    protected abstract T read(ByteBuffer in);
+
+    /**
+     * 写入可以为null的整数，null写为0，其余值加1后按变长编码写入(负数使用zigzag)
+     */
+    protected static void writeInteger(Integer value, ByteArrayOutputStream out) {
+        writeVarLong(value == null ? 0 : zigzag(value) + 1, out);
+    }
+
+    protected static Integer readInteger(ByteBuffer in) {
+        long raw = readVarLong(in);
+        return raw == 0 ? null : unzigzag(raw - 1);
+    }
+
+    /**
+     * 写入可以为null的字符串，长度加1后按变长编码写入，null写为0
+     */
+    protected static void writeString(String value, ByteArrayOutputStream out) {
+        if (value == null) {
+            writeVarLong(0, out);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length + 1L, out);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    protected static String readString(ByteBuffer in) {
+        long length = readVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        int size = (int) (length - 1);
+        String value = new String(in.array(), in.arrayOffset() + in.position(), size, StandardCharsets.UTF_8);
+        in.position(in.position() + size);
+        return value;
+    }
+
+    private static void writeVarLong(long value, ByteArrayOutputStream out) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * 旧数据中没有末尾新增的字段，读到结尾时按null处理
+     */
+    private static long readVarLong(ByteBuffer in) {
+        if (!in.hasRemaining()) {
+            return 0;
+        }
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("变长整数格式错误");
+    }
+
+    private static long zigzag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+    }
+
+    private static int unzigzag(long value) {
+        int raw = (int) value;
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+}
@@ -0,0 +1,49 @@
+package top.easyblog.common.codec;
+
+import com.alibaba.fastjson.JSON;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 与原有缓存格式兼容的JSON编解码器：实体先用fastjson转成字符串，再作为JSON字符串字面量保存，
+ * 与RedisTemplate的Jackson hash value序列化器写出的格式一致
+ *
+ * @param <T> 实体类型
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+@Slf4j
+public class JsonValueCodec<T> implements ValueCodec<T> {
+
+    private final Class<T> type;
+
+    public JsonValueCodec(Class<T> type) {
+        this.type = type;
+    }
+
+    @Override
+    public byte[] encode(T value) {
+        return JSON.toJSONString(JSON.toJSONString(value)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public T decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            String text = new String(bytes, StandardCharsets.UTF_8);
+            //外层是Jackson写出的字符串字面量，先去掉一层引号和转义
+            if (text.charAt(0) == '"') {
+                text = JSON.parseObject(text, String.class);
+            }
+            return JSON.parseObject(text, type);
+        } catch (RuntimeException e) {
+            log.warn("无法解析的{}缓存值: {}", type.getSimpleName(), e.getMessage());
+            return null;
+        }
+    }
+
+}
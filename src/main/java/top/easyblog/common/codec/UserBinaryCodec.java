@@ -0,0 +1,39 @@
+package top.easyblog.common.codec;
+
+import top.easyblog.entity.User;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * User的二进制编解码器，字段顺序为userId、age、name、gender，新增字段只能追加在末尾
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class UserBinaryCodec extends BinaryValueCodec<User> {
+
+    public UserBinaryCodec() {
+        super(new JsonValueCodec<>(User.class));
+    }
+
+    @Override
+    protected void write(User user, ByteArrayOutputStream out) {
+        writeInteger(user.getUserId(), out);
+        writeInteger(user.getAge(), out);
+        writeString(user.getName(), out);
+        writeString(user.getGender(), out);
+    }
+
+    @Override
+    protected User read(ByteBuffer in) {
+        User user = new User();
+        user.setUserId(readInteger(in));
+        user.setAge(readInteger(in));
+        user.setName(readString(in));
+        user.setGender(readString(in));
+        return user;
+    }
+
+}
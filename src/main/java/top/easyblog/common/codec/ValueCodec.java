@@ -0,0 +1,29 @@
+package top.easyblog.common.codec;
+
+/**
+ * 缓存值的编解码器，决定实体在Redis中保存的字节格式
+ *
+ * @param <T> 实体类型
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public interface ValueCodec<T> {
+
+    /**
+     * 编码
+     *
+     * @param value 实体，不能为null
+     * @return 写入Redis的字节
+     */
+    byte[] encode(T value);
+
+    /**
+     * 解码
+     *
+     * @param bytes 从Redis读出的字节，key或项不存在时为null
+     * @return 实体，bytes为null或者无法解析时返回null
+     */
+    T decode(byte[] bytes);
+
+}
@@ -0,0 +1,38 @@
+package top.easyblog.common.enums;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.Funnels;
+
+/**
+ * 布隆过滤器元素写入Hasher的方式，在application.yml中通过bloom-filter.filters.*.funnel配置
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public enum FunnelType {
+    /**
+     * 字符串元素，为了与已有的布隆过滤器数据兼容，字符串按UTF-8写入两次
+     */
+    STRING((Funnel<String>) (from, into) -> into.putString(from, Charsets.UTF_8).putString(from, Charsets.UTF_8)),
+    /**
+     * int元素
+     */
+    INTEGER(Funnels.integerFunnel()),
+    /**
+     * long元素
+     */
+    LONG(Funnels.longFunnel());
+
+    private final Funnel<?> funnel;
+
+    FunnelType(Funnel<?> funnel) {
+        this.funnel = funnel;
+    }
+
+    public Funnel<?> getFunnel() {
+        return funnel;
+    }
+
+}
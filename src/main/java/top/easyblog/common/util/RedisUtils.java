@@ -1,22 +1,60 @@
 package top.easyblog.common.util;
 
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.BitFieldSubCommands;
+import org.springframework.data.redis.connection.BitFieldSubCommands.BitFieldIncrBy;
+import org.springframework.data.redis.connection.BitFieldSubCommands.BitFieldType;
+import org.springframework.data.redis.connection.BitFieldSubCommands.Offset;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.core.*;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scripting.support.ResourceScriptSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 import top.easyblog.ApplicationContextHolder;
+import top.easyblog.common.BlockedBloomFilterHelper;
 import top.easyblog.common.BloomFilterHelper;
+import top.easyblog.common.CuckooFilterHelper;
+import top.easyblog.common.CuckooFilterHelper.CuckooPosition;
+import top.easyblog.common.LongBloomFilterHelper;
+import top.easyblog.common.ShardedBloomFilterHelper;
+import top.easyblog.common.ShardedBloomFilterHelper.ShardedOffset;
 import top.easyblog.common.enums.RedisDBSelector;
 import top.easyblog.redis.ObjectRedisTemplate;
+import top.easyblog.redis.RedisTemplatePool;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -34,25 +72,25 @@ public class RedisUtils {
     @Autowired
     private ObjectRedisTemplate redisTemplate;
     @Autowired
-    private ValueOperations<String, Object> redisValueOps;
-    @Autowired
-    private HashOperations<String, String, Object> redisHashOps;
-    @Autowired
-    private ListOperations<String, Object> redisListOps;
-    @Autowired
-    private SetOperations<String, Object> redisSetOps;
-    @Autowired
-    private ZSetOperations<String, Object> redisZSetOps;
-
+    private RedisTemplatePool redisTemplatePool;
+    /**
+     * 没有引入Actuator时使用Micrometer的全局注册表，不记录任何指标
+     */
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
 
     /**
-     * Redis数据库最大索引
+     * 以key和操作类型缓存的往返次数统计，热点路径上不重复构建和查找meter
      */
-    private static final int MAX_DB_INDEX = 15;
+    private final Map<String, DistributionSummary> roundTripSummaries = new ConcurrentHashMap<>();
+
     /**
-     * Redis数据库最小索引
+     * 批量操作布隆过滤器时每个pipeline包含的元素个数
      */
-    private static final int MIN_DB_INDEX = 0;
+    @Value("${redis.bloom.pipeline-chunk-size:1000}")
+    private int pipelineChunkSize;
+
+
     /**
      * 默认过期时间
      */
@@ -62,6 +100,51 @@ public class RedisUtils {
      */
     private static final int NON_EXPIRE = -1;
 
+    /**
+     * 一次设置布隆过滤器全部bit位的Lua脚本，执行时优先使用EVALSHA
+     */
+    private static final RedisScript<Long> BLOOM_ADD_SCRIPT = loadScript("lua/bloom_add.lua");
+    /**
+     * 一次检查布隆过滤器全部bit位的Lua脚本，执行时优先使用EVALSHA
+     */
+    private static final RedisScript<Long> BLOOM_CHECK_SCRIPT = loadScript("lua/bloom_check.lua");
+    /**
+     * 在一次调用中检查并递减计数布隆过滤器计数器的Lua脚本
+     */
+    private static final RedisScript<Long> COUNTING_BLOOM_REMOVE_SCRIPT = loadScript("lua/counting_bloom_remove.lua");
+    /**
+     * 向布谷鸟过滤器插入指纹的Lua脚本
+     */
+    private static final RedisScript<Long> CUCKOO_INSERT_SCRIPT = loadScript("lua/cuckoo_insert.lua");
+    /**
+     * 从布谷鸟过滤器删除指纹的Lua脚本
+     */
+    private static final RedisScript<Long> CUCKOO_DELETE_SCRIPT = loadScript("lua/cuckoo_delete.lua");
+    /**
+     * 向hash写入多个项并且只在key没有过期时间时设置过期时间的Lua脚本
+     */
+    private static final RedisScript<Long> HASH_SET_EXPIRE_SCRIPT = loadScript("lua/hash_set_expire.lua");
+    /**
+     * 向可扩容布隆过滤器当前层添加元素的Lua脚本
+     */
+    private static final RedisScript<Long> SCALABLE_BLOOM_ADD_SCRIPT = loadScript("lua/scalable_bloom_add.lua");
+    /**
+     * 比较token后删除租约的Lua脚本
+     */
+    private static final RedisScript<Long> LEASE_RELEASE_SCRIPT = loadScript("lua/lease_release.lua");
+    /**
+     * 布谷鸟过滤器插入时的最大踢出次数
+     */
+    private static final int CUCKOO_MAX_KICKS = 500;
+    /**
+     * 计数布隆过滤器每个计数器的类型，4bit无符号整数，最大计数15
+     */
+    private static final BitFieldType COUNTER_TYPE = BitFieldType.unsigned(4);
+    /**
+     * 脚本返回值序列化方式
+     */
+    private static final RedisSerializer<Long> LONG_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
     /**
      * redis读写工具类
      */
@@ -86,23 +169,28 @@ public class RedisUtils {
      * @return
      */
     public RedisTemplate getRedisTemplate(RedisDBSelector dbIndex) {
-        setDbIndex(dbIndex);
-        return redisTemplate;
+        return template(dbIndex);
     }
 
     /**
-     * 设置数据库索引
+     * 获取指定库的RedisTemplate，每个库使用独立的连接工厂，不再修改共享连接工厂的数据库索引
      *
      * @param dbIndex
      */
-    private void setDbIndex(RedisDBSelector dbIndex) {
-        if (dbIndex == null || dbIndex.getDb() > MAX_DB_INDEX || dbIndex.getDb() < MIN_DB_INDEX) {
-            dbIndex = RedisDBSelector.DB_0;
-        }
-        LettuceConnectionFactory jedisConnectionFactory = (LettuceConnectionFactory) redisTemplate.getConnectionFactory();
-        assert jedisConnectionFactory != null;
-        jedisConnectionFactory.setDatabase(dbIndex.getDb());
-        redisTemplate.setConnectionFactory(jedisConnectionFactory);
+    private ObjectRedisTemplate template(RedisDBSelector dbIndex) {
+        return redisTemplatePool.getTemplate(dbIndex);
+    }
+
+    private ValueOperations<String, Object> valueOps(RedisDBSelector dbIndex) {
+        return template(dbIndex).opsForValue();
+    }
+
+    private HashOperations<String, String, Object> hashOps(RedisDBSelector dbIndex) {
+        return template(dbIndex).opsForHash();
+    }
+
+    private ListOperations<String, Object> listOps(RedisDBSelector dbIndex) {
+        return template(dbIndex).opsForList();
     }
 
     /**
@@ -115,9 +203,8 @@ public class RedisUtils {
      */
     public Boolean expire(String key, long time, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
             if (time > 0) {
-                return redisTemplate.expire(key, time, TimeUnit.SECONDS);
+                return template(dbIndex).expire(key, time, TimeUnit.SECONDS);
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -133,8 +220,7 @@ public class RedisUtils {
      */
     public Long getExpire(String key, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
-            return redisTemplate.getExpire(key, TimeUnit.SECONDS);
+            return template(dbIndex).getExpire(key, TimeUnit.SECONDS);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -149,14 +235,81 @@ public class RedisUtils {
      */
     public Boolean hasKey(String key, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
-            return redisTemplate.hasKey(key);
+            return template(dbIndex).hasKey(key);
         } catch (Exception e) {
             log.error(e.getMessage());
         }
         return false;
     }
 
+    /**
+     * 判断key是否存在，Redis访问失败时抛出异常，用于不能把失败当作不存在处理的场景
+     *
+     * @param key     键
+     * @param dbIndex 读写操作的库
+     * @return true 存在 false不存在
+     */
+    public boolean hasKeyOrThrow(String key, RedisDBSelector dbIndex) {
+        Boolean exists = template(dbIndex).hasKey(key);
+        if (exists == null) {
+            throw new IllegalStateException("EXISTS " + key + "没有返回结果");
+        }
+        return exists;
+    }
+
+    /**
+     * 异步判断key是否存在，通过Lettuce异步接口发出EXISTS，不占用调用线程，访问失败时以false完成
+     *
+     * @param key     键
+     * @param dbIndex 读写操作的库
+     * @return true 存在 false不存在
+     */
+    public CompletionStage<Boolean> hasKeyAsync(String key, RedisDBSelector dbIndex) {
+        try {
+            return redisTemplatePool.getAsyncCommands(dbIndex)
+                    .exists(rawKey(key))
+                    .handle((count, e) -> {
+                        if (e != null) {
+                            log.error(e.getMessage());
+                            return false;
+                        }
+                        return count != null && count > 0;
+                    });
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return CompletableFuture.completedFuture(false);
+    }
+
+    /**
+     * 通过一个pipeline判断多个key是否存在
+     *
+     * @param keys    键
+     * @param dbIndex 读写操作的库
+     * @return 与keys顺序一致的判断结果，访问失败时全部为false
+     */
+    public List<Boolean> hasKeys(List<String> keys, RedisDBSelector dbIndex) {
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            List<Object> replies = template(dbIndex).executePipelined((RedisCallback<Object>) connection -> {
+                for (String key : keys) {
+                    connection.exists(rawKey(key));
+                }
+                return null;
+            });
+            List<Boolean> result = new ArrayList<>(keys.size());
+            for (Object reply : replies) {
+                result.add(Boolean.TRUE.equals(reply));
+            }
+            return result;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return new ArrayList<>(Collections.nCopies(keys.size(), Boolean.FALSE));
+    }
+
     /**
      * 删除缓存
      *
@@ -165,11 +318,10 @@ public class RedisUtils {
     @SuppressWarnings("unchecked")
     public Boolean delete(RedisDBSelector dbIndex, String... key) {
         if (key != null && key.length > 0) {
-            this.setDbIndex(dbIndex);
             if (key.length == 1) {
-                return redisTemplate.delete(key[0]);
+                return template(dbIndex).delete(key[0]);
             } else {
-                Long deleted = redisTemplate.delete(CollectionUtils.arrayToList(key));
+                Long deleted = template(dbIndex).delete(CollectionUtils.arrayToList(key));
                 if (Objects.nonNull(deleted) && deleted > 0) {
                     return true;
                 }
@@ -179,8 +331,16 @@ public class RedisUtils {
     }
 
     public void renameKey(String oldKey, String newKey, RedisDBSelector dbIndex) {
-        this.setDbIndex(dbIndex);
-        redisTemplate.rename(oldKey, newKey);
+        template(dbIndex).rename(oldKey, newKey);
+    }
+
+    /**
+     * newKey不存在时才重命名(RENAMENX)
+     *
+     * @return 重命名成功返回true，newKey已经存在返回false
+     */
+    public boolean renameKeyIfAbsent(String oldKey, String newKey, RedisDBSelector dbIndex) {
+        return Boolean.TRUE.equals(template(dbIndex).renameIfAbsent(oldKey, newKey));
     }
 
     //============================String=============================//
@@ -192,8 +352,7 @@ public class RedisUtils {
      * @return 值
      */
     public Object get(String key, RedisDBSelector dbIndex) {
-        this.setDbIndex(dbIndex);
-        return key == null ? null : redisValueOps.get(key);
+        return key == null ? null : valueOps(dbIndex).get(key);
     }
 
     /**
@@ -205,8 +364,7 @@ public class RedisUtils {
      */
     public boolean set(String key, Object value, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
-            redisValueOps.set(key, value);
+            valueOps(dbIndex).set(key, value);
             return true;
         } catch (Exception e) {
             e.printStackTrace();
@@ -225,11 +383,10 @@ public class RedisUtils {
      */
     public boolean set(String key, Object value, long time, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
             if (time > 0) {
-                redisValueOps.set(key, value, time, TimeUnit.SECONDS);
+                valueOps(dbIndex).set(key, value, time, TimeUnit.SECONDS);
             } else {
-                redisValueOps.set(key, value);
+                valueOps(dbIndex).set(key, value);
             }
             return true;
         } catch (Exception e) {
@@ -238,6 +395,34 @@ public class RedisUtils {
         return false;
     }
 
+    /**
+     * 通过一个pipeline把多个key设为同一个原始字节值并设置过期时间，不经过value序列化
+     *
+     * @param keys    键
+     * @param value   原始字节
+     * @param time    时间(秒)，要大于0
+     * @param dbIndex 选择Redis数据库
+     * @return true成功 false失败
+     */
+    public boolean setRawAll(Collection<String> keys, byte[] value, long time, RedisDBSelector dbIndex) {
+        if (CollectionUtils.isEmpty(keys)) {
+            return true;
+        }
+        try {
+            Expiration expiration = Expiration.seconds(time);
+            template(dbIndex).executePipelined((RedisCallback<Object>) connection -> {
+                for (String key : keys) {
+                    connection.set(rawKey(key), value, expiration, RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+            });
+            return true;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return false;
+    }
+
     /**
      * 如果key在redis中不存在，那就添加，否者不添加
      *
@@ -249,11 +434,10 @@ public class RedisUtils {
      */
     public Boolean setNX(String key, Object value, long time, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
             if (time > 0) {
-                return redisValueOps.setIfAbsent(key, value, time, TimeUnit.SECONDS);
+                return valueOps(dbIndex).setIfAbsent(key, value, time, TimeUnit.SECONDS);
             } else {
-                return redisValueOps.setIfAbsent(key, value);
+                return valueOps(dbIndex).setIfAbsent(key, value);
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -261,6 +445,44 @@ public class RedisUtils {
         return false;
     }
 
+    /**
+     * 获取租约：key不存在时写入调用方生成的随机token并设置过期时间，token按UTF-8原样保存，释放时用来确认租约仍属于调用方
+     *
+     * @param key     租约key
+     * @param token   调用方生成的随机token
+     * @param time    租约有效期(秒)，要大于0
+     * @param dbIndex 选择Redis数据库
+     * @return 拿到租约返回true，租约被别人持有或访问失败返回false
+     */
+    public boolean tryLease(String key, String token, long time, RedisDBSelector dbIndex) {
+        try {
+            Boolean acquired = template(dbIndex).execute((RedisCallback<Boolean>) connection -> connection.set(rawKey(key),
+                    rawKey(token), Expiration.seconds(time), RedisStringCommands.SetOption.ifAbsent()));
+            return Boolean.TRUE.equals(acquired);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * 释放租约，比较token和删除在一次Lua脚本调用中原子完成，不会删掉过期后被别人拿到的租约
+     *
+     * @param key     租约key
+     * @param token   获取租约时使用的token
+     * @param dbIndex 选择Redis数据库
+     * @return 释放成功返回true，租约已经过期、属于别人或访问失败返回false
+     */
+    public boolean releaseLease(String key, String token, RedisDBSelector dbIndex) {
+        try {
+            Long result = executeScript(LEASE_RELEASE_SCRIPT, key, new Object[]{token}, dbIndex);
+            return result != null && result > 0;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return false;
+    }
+
     /**
      * 如何Key在redis中存在，则添加到Redis中，否者不添加
      *
@@ -272,11 +494,10 @@ public class RedisUtils {
      */
     public Boolean setXX(String key, Object value, long time, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
             if (time > 0) {
-                return redisValueOps.setIfPresent(key, value, time, TimeUnit.SECONDS);
+                return valueOps(dbIndex).setIfPresent(key, value, time, TimeUnit.SECONDS);
             } else {
-                return redisValueOps.setIfPresent(key, value);
+                return valueOps(dbIndex).setIfPresent(key, value);
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -284,6 +505,78 @@ public class RedisUtils {
         return false;
     }
 
+    /**
+     * 获取字符串的字节长度
+     *
+     * @param key     键
+     * @param dbIndex 读写操作的库
+     * @return 字节长度，key不存在返回0
+     */
+    public Long strlen(String key, RedisDBSelector dbIndex) {
+        try {
+            return template(dbIndex).execute((RedisCallback<Long>) connection -> connection.strLen(rawKey(key)));
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return 0L;
+    }
+
+    /**
+     * 获取字符串的字节长度，Redis访问失败时抛出异常，用于不能把失败当作空值处理的场景(例如读取bitmap)
+     *
+     * @param key     键
+     * @param dbIndex 读写操作的库
+     * @return 字节长度，key不存在返回0
+     */
+    public long strlenOrThrow(String key, RedisDBSelector dbIndex) {
+        Long length = template(dbIndex).execute((RedisCallback<Long>) connection -> connection.strLen(rawKey(key)));
+        if (length == null) {
+            throw new IllegalStateException("STRLEN " + key + "没有返回结果");
+        }
+        return length;
+    }
+
+    /**
+     * 按字节读取字符串的一段原始内容，不经过value序列化，适合读取bitmap
+     *
+     * @param key     键
+     * @param start   起始字节(包含)
+     * @param end     结束字节(包含)
+     * @param dbIndex 读写操作的库
+     * @return 原始字节
+     */
+    public byte[] getRange(String key, long start, long end, RedisDBSelector dbIndex) {
+        return template(dbIndex).execute((RedisCallback<byte[]>) connection -> connection.getRange(rawKey(key), start, end));
+    }
+
+    /**
+     * 统计字符串一段字节范围内为1的bit数，按字节范围分段调用可以避免大bitmap上的单次BITCOUNT阻塞Redis
+     *
+     * @param key     键
+     * @param start   起始字节(包含)
+     * @param end     结束字节(包含)
+     * @param dbIndex 读写操作的库
+     * @return 为1的bit数，key不存在返回0
+     */
+    public Long bitCount(String key, long start, long end, RedisDBSelector dbIndex) {
+        return template(dbIndex).execute((RedisCallback<Long>) connection -> connection.bitCount(rawKey(key), start, end));
+    }
+
+    /**
+     * 从指定字节偏移量开始覆盖写入原始内容，不经过value序列化，key不存在时自动创建并用0填充偏移量之前的部分
+     *
+     * @param key     键
+     * @param value   原始字节
+     * @param offset  起始字节
+     * @param dbIndex 读写操作的库
+     */
+    public void setRange(String key, byte[] value, long offset, RedisDBSelector dbIndex) {
+        template(dbIndex).execute((RedisCallback<Object>) connection -> {
+            connection.setRange(rawKey(key), value, offset);
+            return null;
+        });
+    }
+
     /**
      * 递增
      *
@@ -291,11 +584,11 @@ public class RedisUtils {
      * @param delta 要增加几(大于0)
      * @return
      */
-    public Long incr(String key, long delta) {
+    public Long incr(String key, long delta, RedisDBSelector dbIndex) {
         if (delta < 0) {
             throw new RuntimeException("递增因子必须大于0");
         }
-        return redisValueOps.increment(key, delta);
+        return valueOps(dbIndex).increment(key, delta);
     }
 
     /**
@@ -305,11 +598,11 @@ public class RedisUtils {
      * @param delta 要减少几(小于0)
      * @return
      */
-    public Long decr(String key, long delta) {
+    public Long decr(String key, long delta, RedisDBSelector dbIndex) {
         if (delta < 0) {
             throw new RuntimeException("递减因子必须大于0");
         }
-        return redisValueOps.increment(key, -delta);
+        return valueOps(dbIndex).increment(key, -delta);
     }
 
     //================================Map=================================//
@@ -322,8 +615,63 @@ public class RedisUtils {
      * @return 值
      */
     public Object hget(String key, String item, RedisDBSelector dbIndex) {
-        this.setDbIndex(dbIndex);
-        return redisHashOps.get(key, item);
+        return hashOps(dbIndex).get(key, item);
+    }
+
+    /**
+     * 异步HashGet，通过Lettuce异步接口发出HGET，不占用调用线程。键和值的序列化方式与{@link #hget}相同，
+     * 访问失败时以null完成。返回的CompletionStage在Lettuce的I/O线程上完成
+     *
+     * @param key     键 不能为null
+     * @param item    项 不能为null
+     * @param dbIndex 选择Redis数据库
+     * @return 值
+     */
+    public CompletionStage<Object> hgetAsync(String key, String item, RedisDBSelector dbIndex) {
+        RedisSerializer<?> valueSerializer = template(dbIndex).getHashValueSerializer();
+        return hgetRawAsync(key, item, dbIndex).thenApply(bytes -> (Object) valueSerializer.deserialize(bytes));
+    }
+
+    /**
+     * 异步HashGet，返回原始字节，不经过hash value序列化，由调用方自己解码。访问失败时以null完成
+     *
+     * @param key     键 不能为null
+     * @param item    项 不能为null
+     * @param dbIndex 选择Redis数据库
+     * @return 原始字节
+     */
+    public CompletionStage<byte[]> hgetRawAsync(String key, String item, RedisDBSelector dbIndex) {
+        try {
+            return redisTemplatePool.getAsyncCommands(dbIndex)
+                    .hget(rawKey(key), rawKey(item))
+                    .handle((bytes, e) -> {
+                        if (e != null) {
+                            log.error(e.getMessage());
+                            return null;
+                        }
+                        return bytes;
+                    });
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * HashGet，返回原始字节，不经过hash value序列化
+     *
+     * @param key     键 不能为null
+     * @param item    项 不能为null
+     * @param dbIndex 选择Redis数据库
+     * @return 原始字节，不存在或访问失败时为null
+     */
+    public byte[] hgetRaw(String key, String item, RedisDBSelector dbIndex) {
+        try {
+            return template(dbIndex).execute((RedisCallback<byte[]>) connection -> connection.hGet(rawKey(key), rawKey(item)));
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return null;
     }
 
     /**
@@ -333,8 +681,46 @@ public class RedisUtils {
      * @return 对应的多个键值
      */
     public Map<String, Object> hmget(String key, RedisDBSelector dbIndex) {
-        this.setDbIndex(dbIndex);
-        return redisHashOps.entries(key);
+        return hashOps(dbIndex).entries(key);
+    }
+
+    /**
+     * 通过一个pipeline对多个hash各执行一次HMGET，返回原始字节，不经过hash value序列化
+     *
+     * @param itemsByKey 每个hash的key及要读取的项
+     * @param dbIndex    选择Redis数据库
+     * @return 每个hash的key对应的与项顺序一致的原始字节，不存在的项为null，访问失败时全部为null
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, List<byte[]>> hmultiGetRaw(Map<String, List<String>> itemsByKey, RedisDBSelector dbIndex) {
+        Map<String, List<byte[]>> result = new LinkedHashMap<>(itemsByKey.size() * 2);
+        if (itemsByKey.isEmpty()) {
+            return result;
+        }
+        List<String> keys = new ArrayList<>(itemsByKey.keySet());
+        try {
+            List<Object> values = template(dbIndex).executePipelined((RedisCallback<Object>) connection -> {
+                for (String key : keys) {
+                    List<String> items = itemsByKey.get(key);
+                    byte[][] fields = new byte[items.size()][];
+                    for (int i = 0; i < fields.length; i++) {
+                        fields[i] = rawKey(items.get(i));
+                    }
+                    connection.hMGet(rawKey(key), fields);
+                }
+                return null;
+            }, RedisSerializer.byteArray());
+            for (int i = 0; i < keys.size(); i++) {
+                result.put(keys.get(i), (List<byte[]>) values.get(i));
+            }
+            return result;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        for (String key : keys) {
+            result.put(key, new ArrayList<>(Collections.nCopies(itemsByKey.get(key).size(), null)));
+        }
+        return result;
     }
 
     /**
@@ -346,8 +732,7 @@ public class RedisUtils {
      */
     public boolean hmset(String key, Map<String, Object> map, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
-            redisHashOps.putAll(key, map);
+            hashOps(dbIndex).putAll(key, map);
             return true;
         } catch (Exception e) {
             e.printStackTrace();
@@ -365,8 +750,7 @@ public class RedisUtils {
      */
     public boolean hmset(String key, Map<String, Object> map, long time, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
-            redisHashOps.putAll(key, map);
+            hashOps(dbIndex).putAll(key, map);
             if (time > 0) {
                 expire(key, time, dbIndex);
             }
@@ -377,6 +761,43 @@ public class RedisUtils {
         }
     }
 
+    /**
+     * 通过一个pipeline向多个hash写入原始字节。每个hash只在还没有过期时间时设置过期时间，
+     * 过期时间在[minTime, maxTime]内随机选取，后续写入不会推迟已有hash的过期，各个hash的过期时间彼此错开。
+     * 写入脚本只发送EVALSHA，Redis中没有缓存脚本时才加载
+     *
+     * @param hashes  每个hash的key及要写入的项和原始字节
+     * @param minTime 最短过期时间(秒)
+     * @param maxTime 最长过期时间(秒)
+     * @param dbIndex 选择Redis数据库
+     * @return true成功 false失败
+     */
+    public boolean hmsetRawWithTtl(Map<String, Map<String, byte[]>> hashes, long minTime, long maxTime, RedisDBSelector dbIndex) {
+        if (CollectionUtils.isEmpty(hashes)) {
+            return true;
+        }
+        try {
+            List<byte[][]> keysAndArgs = new ArrayList<>(hashes.size());
+            hashes.forEach((key, items) -> {
+                long time = ThreadLocalRandom.current().nextLong(minTime, maxTime + 1);
+                byte[][] call = new byte[2 + items.size() * 2][];
+                call[0] = rawKey(key);
+                call[1] = rawKey(String.valueOf(time));
+                int i = 2;
+                for (Map.Entry<String, byte[]> item : items.entrySet()) {
+                    call[i++] = rawKey(item.getKey());
+                    call[i++] = item.getValue();
+                }
+                keysAndArgs.add(call);
+            });
+            executeScriptPipelined(HASH_SET_EXPIRE_SCRIPT, 1, keysAndArgs, dbIndex);
+            return true;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return false;
+    }
+
     /**
      * 向一张hash表中放入数据,如果不存在将创建
      *
@@ -387,8 +808,7 @@ public class RedisUtils {
      */
     public boolean hset(String key, String item, Object value, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
-            redisHashOps.put(key, item, value);
+            hashOps(dbIndex).put(key, item, value);
             return true;
         } catch (Exception e) {
             e.printStackTrace();
@@ -407,8 +827,7 @@ public class RedisUtils {
      */
     public boolean hset(String key, String item, Object value, long time, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
-            redisHashOps.put(key, item, value);
+            hashOps(dbIndex).put(key, item, value);
             if (time > 0) {
                 expire(key, time, dbIndex);
             }
@@ -426,8 +845,7 @@ public class RedisUtils {
      * @param item 项 可以使多个 不能为null
      */
     public void hdel(RedisDBSelector dbIndex, String key, Object... item) {
-        this.setDbIndex(dbIndex);
-        redisHashOps.delete(key, item);
+        hashOps(dbIndex).delete(key, item);
     }
 
     /**
@@ -438,8 +856,7 @@ public class RedisUtils {
      * @return true 存在 false不存在
      */
     public boolean hHasKey(String key, String item, RedisDBSelector dbIndex) {
-        this.setDbIndex(dbIndex);
-        return redisHashOps.hasKey(key, item);
+        return hashOps(dbIndex).hasKey(key, item);
     }
 
     /**
@@ -451,8 +868,7 @@ public class RedisUtils {
      * @return
      */
     public double hincr(String key, String item, double delta, RedisDBSelector dbIndex) {
-        this.setDbIndex(dbIndex);
-        return redisHashOps.increment(key, item, delta);
+        return hashOps(dbIndex).increment(key, item, delta);
     }
 
     /**
@@ -464,8 +880,7 @@ public class RedisUtils {
      * @return
      */
     public double hdecr(String key, String item, double by, RedisDBSelector dbIndex) {
-        this.setDbIndex(dbIndex);
-        return redisHashOps.increment(key, item, -by);
+        return hashOps(dbIndex).increment(key, item, -by);
     }
 
     //============================Set=================================//
@@ -478,8 +893,7 @@ public class RedisUtils {
      */
     public Set<Object> sGet(String key, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
-            return redisTemplate.opsForSet().members(key);
+            return template(dbIndex).opsForSet().members(key);
         } catch (Exception e) {
             e.printStackTrace();
             return null;
@@ -495,8 +909,7 @@ public class RedisUtils {
      */
     public Boolean sHasKey(String key, Object value, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
-            return redisTemplate.opsForSet().isMember(key, value);
+            return template(dbIndex).opsForSet().isMember(key, value);
         } catch (Exception e) {
             e.printStackTrace();
             return false;
@@ -512,8 +925,7 @@ public class RedisUtils {
      */
     public Long sSet(String key, RedisDBSelector dbIndex, Object... values) {
         try {
-            this.setDbIndex(dbIndex);
-            return redisTemplate.opsForSet().add(key, values);
+            return template(dbIndex).opsForSet().add(key, values);
         } catch (Exception e) {
             e.printStackTrace();
             return 0L;
@@ -530,8 +942,7 @@ public class RedisUtils {
      */
     public Long sSetAndTime(String key, long time, RedisDBSelector dbIndex, Object... values) {
         try {
-            this.setDbIndex(dbIndex);
-            Long count = redisTemplate.opsForSet().add(key, values);
+            Long count = template(dbIndex).opsForSet().add(key, values);
             if (time > 0) {
                 expire(key, time, dbIndex);
             }
@@ -550,8 +961,7 @@ public class RedisUtils {
      */
     public Long sGetSetSize(String key, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
-            return redisTemplate.opsForSet().size(key);
+            return template(dbIndex).opsForSet().size(key);
         } catch (Exception e) {
             e.printStackTrace();
             return 0L;
@@ -567,8 +977,7 @@ public class RedisUtils {
      */
     public Long setRemove(String key, RedisDBSelector dbIndex, Object... values) {
         try {
-            this.setDbIndex(dbIndex);
-            return redisTemplate.opsForSet().remove(key, values);
+            return template(dbIndex).opsForSet().remove(key, values);
         } catch (Exception e) {
             e.printStackTrace();
             return 0L;
@@ -586,8 +995,7 @@ public class RedisUtils {
      */
     public List<Object> lGet(String key, long start, long end, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
-            return redisListOps.range(key, start, end);
+            return listOps(dbIndex).range(key, start, end);
         } catch (Exception e) {
             e.printStackTrace();
             return null;
@@ -602,8 +1010,7 @@ public class RedisUtils {
      */
     public Long lGetListSize(String key, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
-            return redisListOps.size(key);
+            return listOps(dbIndex).size(key);
         } catch (Exception e) {
             e.printStackTrace();
             return 0L;
@@ -619,8 +1026,7 @@ public class RedisUtils {
      */
     public Object lGetIndex(String key, long index, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
-            return redisListOps.index(key, index);
+            return listOps(dbIndex).index(key, index);
         } catch (Exception e) {
             e.printStackTrace();
             return null;
@@ -636,8 +1042,7 @@ public class RedisUtils {
      */
     public boolean lSet(String key, Object value, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
-            redisListOps.rightPush(key, value);
+            listOps(dbIndex).rightPush(key, value);
             return true;
         } catch (Exception e) {
             e.printStackTrace();
@@ -655,7 +1060,7 @@ public class RedisUtils {
      */
     public boolean lSet(String key, Object value, long time, RedisDBSelector dbIndex) {
         try {
-            redisListOps.rightPush(key, value);
+            listOps(dbIndex).rightPush(key, value);
             if (time > 0) {
                 expire(key, time, dbIndex);
             }
@@ -675,8 +1080,7 @@ public class RedisUtils {
      */
     public boolean lSet(String key, List<Object> value, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
-            redisListOps.rightPushAll(key, value);
+            listOps(dbIndex).rightPushAll(key, value);
             return true;
         } catch (Exception e) {
             e.printStackTrace();
@@ -694,8 +1098,7 @@ public class RedisUtils {
      */
     public boolean lSet(String key, List<Object> value, long time, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
-            redisListOps.rightPushAll(key, value);
+            listOps(dbIndex).rightPushAll(key, value);
             if (time > 0) {
                 expire(key, time, dbIndex);
             }
@@ -716,8 +1119,7 @@ public class RedisUtils {
      */
     public boolean lUpdateIndex(String key, long index, Object value, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
-            redisListOps.set(key, index, value);
+            listOps(dbIndex).set(key, index, value);
             return true;
         } catch (Exception e) {
             e.printStackTrace();
@@ -735,8 +1137,7 @@ public class RedisUtils {
      */
     public Long lRemove(String key, long count, Object value, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
-            return redisListOps.remove(key, count, value);
+            return listOps(dbIndex).remove(key, count, value);
         } catch (Exception e) {
             e.printStackTrace();
             return 0L;
@@ -757,11 +1158,11 @@ public class RedisUtils {
      */
     public <T> Boolean add2BloomFilter(BloomFilterHelper<T> helper, String key, T value, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
             int[] offset = helper.murmurHashOffset(value);
             for (int i : offset) {
-                redisValueOps.setBit(key, i, true);
+                valueOps(dbIndex).setBit(key, i, true);
             }
+            recordRoundTrips(key, "add", offset.length);
             return true;
         } catch (Exception e) {
             log.error(e.getMessage());
@@ -781,17 +1182,879 @@ public class RedisUtils {
      */
     public <T> Boolean mightContain(BloomFilterHelper<T> helper, String key, T value, RedisDBSelector dbIndex) {
         try {
-            this.setDbIndex(dbIndex);
             int[] offset = helper.murmurHashOffset(value);
+            int roundTrips = 0;
             for (int i : offset) {
-                if (!redisValueOps.getBit(key, i)) {
+                roundTrips++;
+                if (!valueOps(dbIndex).getBit(key, i)) {
+                    recordRoundTrips(key, "check", roundTrips);
                     return false;
                 }
             }
+            recordRoundTrips(key, "check", roundTrips);
         } catch (Exception e) {
             log.error(e.getMessage());
         }
         return true;
     }
 
-}
\ No newline at end of file
+    /**
+     * 使用Lua脚本向Redis的布隆过滤器中添加元素，k个bit位在一次网络往返中全部设置完成。
+     * 脚本执行失败(例如Redis禁用了脚本)时退化为{@link #add2BloomFilter}逐位设置
+     *
+     * @param helper  BloomFilterHelper<T>
+     * @param key     布隆过滤器名
+     * @param value   值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 添加成功返回true, 添加失败返回false
+     */
+    public <T> Boolean add2BloomFilterByScript(BloomFilterHelper<T> helper, String key, T value, RedisDBSelector dbIndex) {
+        try {
+            int[] offset = helper.murmurHashOffset(value);
+            executeBitScript(BLOOM_ADD_SCRIPT, key, offset, dbIndex);
+            recordRoundTrips(key, "add", 1);
+            return true;
+        } catch (Exception e) {
+            log.warn("布隆过滤器脚本执行失败，退化为逐位设置: {}", e.getMessage());
+        }
+        return add2BloomFilter(helper, key, value, dbIndex);
+    }
+
+    /**
+     * 使用Lua脚本判断元素在RedisBloom中是否存在，k个bit位在一次网络往返中全部检查完成。
+     * 脚本执行失败(例如Redis禁用了脚本)时退化为{@link #mightContain}逐位检查
+     *
+     * @param helper  BloomFilterHelper<T>
+     * @param key     布隆过滤器名
+     * @param value   值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 可能存在返回true，一定不存在false
+     */
+    public <T> Boolean mightContainByScript(BloomFilterHelper<T> helper, String key, T value, RedisDBSelector dbIndex) {
+        try {
+            int[] offset = helper.murmurHashOffset(value);
+            Long result = executeBitScript(BLOOM_CHECK_SCRIPT, key, offset, dbIndex);
+            recordRoundTrips(key, "check", 1);
+            return result == null || result != 0;
+        } catch (Exception e) {
+            log.warn("布隆过滤器脚本执行失败，退化为逐位检查: {}", e.getMessage());
+        }
+        return mightContain(helper, key, value, dbIndex);
+    }
+
+    /**
+     * 向long元素的Redis布隆过滤器中添加元素，偏移量使用线程本地数组计算，没有装箱和Hasher分配
+     *
+     * @param helper  LongBloomFilterHelper
+     * @param key     布隆过滤器名
+     * @param value   值
+     * @param dbIndex 选择Redis数据库
+     * @return 添加成功返回true, 添加失败返回false
+     */
+    public Boolean add2LongBloomFilter(LongBloomFilterHelper helper, String key, long value, RedisDBSelector dbIndex) {
+        try {
+            executeBitScript(BLOOM_ADD_SCRIPT, key, helper.threadLocalOffset(value), dbIndex);
+            recordRoundTrips(key, "add", 1);
+            return true;
+        } catch (Exception e) {
+            log.warn("布隆过滤器脚本执行失败，退化为逐位设置: {}", e.getMessage());
+        }
+        return add2BloomFilter(helper, key, value, dbIndex);
+    }
+
+    /**
+     * 判断long元素在Redis布隆过滤器中是否存在，偏移量使用线程本地数组计算，没有装箱和Hasher分配
+     *
+     * @param helper  LongBloomFilterHelper
+     * @param key     布隆过滤器名
+     * @param value   值
+     * @param dbIndex 选择Redis数据库
+     * @return 可能存在返回true，一定不存在false
+     */
+    public Boolean mightContainLong(LongBloomFilterHelper helper, String key, long value, RedisDBSelector dbIndex) {
+        try {
+            Long result = executeBitScript(BLOOM_CHECK_SCRIPT, key, helper.threadLocalOffset(value), dbIndex);
+            recordRoundTrips(key, "check", 1);
+            return result == null || result != 0;
+        } catch (Exception e) {
+            log.warn("布隆过滤器脚本执行失败，退化为逐位检查: {}", e.getMessage());
+        }
+        return mightContain(helper, key, value, dbIndex);
+    }
+
+    /**
+     * 异步判断元素在RedisBloom中是否存在，k个GETBIT通过Lettuce异步接口同时发出，不占用调用线程。
+     * 任意一位为0时立即以false完成，不必等其余的位返回；Redis访问失败时与{@link #mightContain}一样以true完成。
+     * 返回的CompletionStage在Lettuce的I/O线程上完成，后续的阻塞操作应当切换到其他线程池执行
+     *
+     * @param helper  BloomFilterHelper<T>
+     * @param key     布隆过滤器名
+     * @param value   值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 可能存在时以true完成，一定不存在时以false完成
+     */
+    public <T> CompletionStage<Boolean> mightContainAsync(BloomFilterHelper<T> helper, String key, T value, RedisDBSelector dbIndex) {
+        try {
+            return getBitsAsync(key, helper.murmurHashOffset(value), dbIndex);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return CompletableFuture.completedFuture(true);
+    }
+
+    /**
+     * 异步判断long元素在Redis布隆过滤器中是否存在，偏移量使用线程本地数组计算
+     *
+     * @param helper  LongBloomFilterHelper
+     * @param key     布隆过滤器名
+     * @param value   值
+     * @param dbIndex 选择Redis数据库
+     * @return 可能存在时以true完成，一定不存在时以false完成
+     */
+    public CompletionStage<Boolean> mightContainLongAsync(LongBloomFilterHelper helper, String key, long value, RedisDBSelector dbIndex) {
+        try {
+            return getBitsAsync(key, helper.threadLocalOffset(value), dbIndex);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return CompletableFuture.completedFuture(true);
+    }
+
+    /**
+     * 异步判断元素在分块布隆过滤器中是否存在，整块通过一次异步GETRANGE读出后在本地判断
+     *
+     * @param helper  BlockedBloomFilterHelper<T>
+     * @param key     布隆过滤器名
+     * @param value   值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 可能存在时以true完成，一定不存在时以false完成
+     */
+    public <T> CompletionStage<Boolean> mightContainBlockedAsync(BlockedBloomFilterHelper<T> helper, String key, T value, RedisDBSelector dbIndex) {
+        try {
+            int[] offset = helper.murmurHashOffset(value);
+            long start = helper.blockByteOffset(offset);
+            return redisTemplatePool.getAsyncCommands(dbIndex)
+                    .getrange(rawKey(key), start, start + BlockedBloomFilterHelper.BLOCK_BYTES - 1)
+                    .handle((block, e) -> {
+                        if (e != null) {
+                            log.error(e.getMessage());
+                            return true;
+                        }
+                        return helper.blockContains(block, offset);
+                    });
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return CompletableFuture.completedFuture(true);
+    }
+
+    /**
+     * 在同一条异步连接上同时发出所有GETBIT，第一个为0的结果到达时就完成
+     */
+    private CompletionStage<Boolean> getBitsAsync(String key, int[] offset, RedisDBSelector dbIndex) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        RedisClusterAsyncCommands<byte[], byte[]> commands = redisTemplatePool.getAsyncCommands(dbIndex);
+        byte[] rawKey = rawKey(key);
+        AtomicInteger remaining = new AtomicInteger(offset.length);
+        for (int i : offset) {
+            commands.getbit(rawKey, i).whenComplete((bit, e) -> {
+                if (e != null) {
+                    log.error(e.getMessage());
+                    result.complete(true);
+                } else if (bit == null || bit == 0) {
+                    result.complete(false);
+                } else if (remaining.decrementAndGet() == 0) {
+                    result.complete(true);
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * 批量向Redis的布隆过滤器中添加元素，bit位操作按{@code redis.bloom.pipeline-chunk-size}分批通过pipeline发送
+     *
+     * @param helper  BloomFilterHelper<T>
+     * @param key     布隆过滤器名
+     * @param values  值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 与values迭代顺序一致的添加结果，添加成功为true，所在批次执行失败为false
+     */
+    public <T> List<Boolean> addAll(BloomFilterHelper<T> helper, String key, Collection<T> values, RedisDBSelector dbIndex) {
+        return addAll(helper, key, values, pipelineChunkSize, dbIndex);
+    }
+
+    /**
+     * 批量向Redis的布隆过滤器中添加元素，每chunkSize个元素的bit位操作通过一次pipeline发送
+     *
+     * @param helper    BloomFilterHelper<T>
+     * @param key       布隆过滤器名
+     * @param values    值
+     * @param chunkSize 每个pipeline包含的元素个数
+     * @param dbIndex   选择Redis数据库
+     * @param <T>       参数的值
+     * @return 与values迭代顺序一致的添加结果，添加成功为true，所在批次执行失败为false
+     */
+    public <T> List<Boolean> addAll(BloomFilterHelper<T> helper, String key, Collection<T> values, int chunkSize, RedisDBSelector dbIndex) {
+        List<Boolean> result = new ArrayList<>(values.size());
+        byte[] rawKey = rawKey(key);
+        int roundTrips = 0;
+        for (List<T> chunk : Iterables.partition(values, chunkSize)) {
+            try {
+                List<int[]> offsets = murmurHashOffsets(helper, chunk);
+                roundTrips++;
+                template(dbIndex).executePipelined((RedisCallback<Object>) connection -> {
+                    for (int[] offset : offsets) {
+                        for (int i : offset) {
+                            connection.setBit(rawKey, i, true);
+                        }
+                    }
+                    return null;
+                });
+                result.addAll(Collections.nCopies(chunk.size(), Boolean.TRUE));
+            } catch (Exception e) {
+                log.error(e.getMessage());
+                result.addAll(Collections.nCopies(chunk.size(), Boolean.FALSE));
+            }
+        }
+        recordRoundTrips(key, "addAll", roundTrips);
+        return result;
+    }
+
+    /**
+     * 批量判断元素在RedisBloom中是否存在，bit位读取按{@code redis.bloom.pipeline-chunk-size}分批通过pipeline发送
+     *
+     * @param helper  BloomFilterHelper<T>
+     * @param key     布隆过滤器名
+     * @param values  值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 与values迭代顺序一致的判断结果，可能存在为true，一定不存在为false
+     */
+    public <T> List<Boolean> mightContainAll(BloomFilterHelper<T> helper, String key, Collection<T> values, RedisDBSelector dbIndex) {
+        return mightContainAll(helper, key, values, pipelineChunkSize, dbIndex);
+    }
+
+    /**
+     * 批量判断元素在RedisBloom中是否存在，每chunkSize个元素的bit位读取通过一次pipeline发送
+     *
+     * @param helper    BloomFilterHelper<T>
+     * @param key       布隆过滤器名
+     * @param values    值
+     * @param chunkSize 每个pipeline包含的元素个数
+     * @param dbIndex   选择Redis数据库
+     * @param <T>       参数的值
+     * @return 与values迭代顺序一致的判断结果，可能存在为true，一定不存在为false
+     */
+    public <T> List<Boolean> mightContainAll(BloomFilterHelper<T> helper, String key, Collection<T> values, int chunkSize, RedisDBSelector dbIndex) {
+        List<Boolean> result = new ArrayList<>(values.size());
+        byte[] rawKey = rawKey(key);
+        int roundTrips = 0;
+        for (List<T> chunk : Iterables.partition(values, chunkSize)) {
+            try {
+                List<int[]> offsets = murmurHashOffsets(helper, chunk);
+                roundTrips++;
+                List<Object> bits = template(dbIndex).executePipelined((RedisCallback<Object>) connection -> {
+                    for (int[] offset : offsets) {
+                        for (int i : offset) {
+                            connection.getBit(rawKey, i);
+                        }
+                    }
+                    return null;
+                });
+                int cursor = 0;
+                for (int[] offset : offsets) {
+                    boolean contain = true;
+                    for (int i = 0; i < offset.length; i++) {
+                        contain &= Boolean.TRUE.equals(bits.get(cursor++));
+                    }
+                    result.add(contain);
+                }
+            } catch (Exception e) {
+                //与mightContain保持一致，出错时当作可能存在处理
+                log.error(e.getMessage());
+                result.addAll(Collections.nCopies(chunk.size(), Boolean.TRUE));
+            }
+        }
+        recordRoundTrips(key, "checkAll", roundTrips);
+        return result;
+    }
+
+    /**
+     * 判断元素在分块布隆过滤器中是否存在，元素的k个bit位都在同一个64字节的块内，一次GETRANGE读出整块后在本地判断
+     *
+     * @param helper  BlockedBloomFilterHelper<T>
+     * @param key     布隆过滤器名
+     * @param value   值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 可能存在返回true，一定不存在false
+     */
+    public <T> Boolean mightContainBlocked(BlockedBloomFilterHelper<T> helper, String key, T value, RedisDBSelector dbIndex) {
+        try {
+            int[] offset = helper.murmurHashOffset(value);
+            long start = helper.blockByteOffset(offset);
+            byte[] block = getRange(key, start, start + BlockedBloomFilterHelper.BLOCK_BYTES - 1, dbIndex);
+            return helper.blockContains(block, offset);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * 向计数布隆过滤器中添加元素，k个4bit计数器通过一条BITFIELD OVERFLOW SAT INCRBY命令加1，计数到15后饱和不再增加。
+     * 计数布隆过滤器占用的空间是普通布隆过滤器的4倍，helper的bit数组长度即计数器个数
+     *
+     * @param helper  BloomFilterHelper<T>
+     * @param key     计数布隆过滤器名
+     * @param value   值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 添加成功返回true, 添加失败返回false
+     */
+    public <T> Boolean add2CountingBloomFilter(BloomFilterHelper<T> helper, String key, T value, RedisDBSelector dbIndex) {
+        try {
+            valueOps(dbIndex).bitField(key, counterCommands(helper.murmurHashOffset(value), 1));
+            return true;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * 判断元素在计数布隆过滤器中是否存在，k个计数器通过一条BITFIELD GET命令读取
+     *
+     * @param helper  BloomFilterHelper<T>
+     * @param key     计数布隆过滤器名
+     * @param value   值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 可能存在返回true，一定不存在false
+     */
+    public <T> Boolean mightContainCounting(BloomFilterHelper<T> helper, String key, T value, RedisDBSelector dbIndex) {
+        try {
+            List<Long> counters = valueOps(dbIndex).bitField(key, counterCommands(helper.murmurHashOffset(value), 0));
+            return countersPositive(counters);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * 从计数布隆过滤器中删除元素，检查和递减k个计数器在一次Lua脚本调用中完成。
+     * 只能删除确实添加过的元素，删除从未添加过的元素会让其它元素产生漏判
+     *
+     * @param helper  BloomFilterHelper<T>
+     * @param key     计数布隆过滤器名
+     * @param value   值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 删除成功返回true，元素不存在或删除失败返回false
+     */
+    public <T> Boolean removeFromCountingBloomFilter(BloomFilterHelper<T> helper, String key, T value, RedisDBSelector dbIndex) {
+        try {
+            Long result = executeBitScript(COUNTING_BLOOM_REMOVE_SCRIPT, key, helper.murmurHashOffset(value), dbIndex);
+            return result != null && result != 0;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * 批量向计数布隆过滤器中添加元素，每个元素一条BITFIELD命令，按{@code redis.bloom.pipeline-chunk-size}分批通过pipeline发送
+     *
+     * @param helper  BloomFilterHelper<T>
+     * @param key     计数布隆过滤器名
+     * @param values  值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 与values迭代顺序一致的添加结果，添加成功为true，所在批次执行失败为false
+     */
+    public <T> List<Boolean> addAllCounting(BloomFilterHelper<T> helper, String key, Collection<T> values, RedisDBSelector dbIndex) {
+        List<Boolean> result = new ArrayList<>(values.size());
+        byte[] rawKey = rawKey(key);
+        for (List<T> chunk : Iterables.partition(values, pipelineChunkSize)) {
+            try {
+                List<int[]> offsets = murmurHashOffsets(helper, chunk);
+                template(dbIndex).executePipelined((RedisCallback<Object>) connection -> {
+                    for (int[] offset : offsets) {
+                        connection.bitField(rawKey, counterCommands(offset, 1));
+                    }
+                    return null;
+                });
+                result.addAll(Collections.nCopies(chunk.size(), Boolean.TRUE));
+            } catch (Exception e) {
+                log.error(e.getMessage());
+                result.addAll(Collections.nCopies(chunk.size(), Boolean.FALSE));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量判断元素在计数布隆过滤器中是否存在，每个元素一条BITFIELD命令，按{@code redis.bloom.pipeline-chunk-size}分批通过pipeline发送
+     *
+     * @param helper  BloomFilterHelper<T>
+     * @param key     计数布隆过滤器名
+     * @param values  值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 与values迭代顺序一致的判断结果，可能存在为true，一定不存在为false
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<Boolean> mightContainAllCounting(BloomFilterHelper<T> helper, String key, Collection<T> values, RedisDBSelector dbIndex) {
+        List<Boolean> result = new ArrayList<>(values.size());
+        byte[] rawKey = rawKey(key);
+        for (List<T> chunk : Iterables.partition(values, pipelineChunkSize)) {
+            try {
+                List<int[]> offsets = murmurHashOffsets(helper, chunk);
+                List<Object> replies = template(dbIndex).executePipelined((RedisCallback<Object>) connection -> {
+                    for (int[] offset : offsets) {
+                        connection.bitField(rawKey, counterCommands(offset, 0));
+                    }
+                    return null;
+                });
+                for (Object counters : replies) {
+                    result.add(countersPositive((List<Long>) counters));
+                }
+            } catch (Exception e) {
+                //与mightContain保持一致，出错时当作可能存在处理
+                log.error(e.getMessage());
+                result.addAll(Collections.nCopies(chunk.size(), Boolean.TRUE));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 生成k个计数器的BITFIELD子命令，delta为0时读取计数器，否者以饱和方式增加delta
+     */
+    private BitFieldSubCommands counterCommands(int[] offset, long delta) {
+        BitFieldSubCommands commands = BitFieldSubCommands.create();
+        for (int i : offset) {
+            Offset counter = Offset.offset(i).multipliedByTypeLength();
+            if (delta == 0) {
+                commands = commands.get(COUNTER_TYPE).valueAt(counter);
+            } else {
+                commands = commands.incr(COUNTER_TYPE).valueAt(counter).overflow(BitFieldIncrBy.Overflow.SAT).by(delta);
+            }
+        }
+        return commands;
+    }
+
+    private boolean countersPositive(List<Long> counters) {
+        if (counters == null) {
+            return true;
+        }
+        for (Long counter : counters) {
+            if (counter == null || counter == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 向布谷鸟过滤器中添加元素，查找空槽位以及必要的踢出操作在一次Lua脚本调用中原子完成。
+     * 两个候选桶中已经有相同指纹时不重复插入，指纹相同的不同元素共用一个槽位，删除其中一个会使另一个也被判为不存在
+     *
+     * @param helper  CuckooFilterHelper<T>
+     * @param key     布谷鸟过滤器名
+     * @param value   值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 添加成功返回true，过滤器已满或添加失败返回false
+     */
+    public <T> Boolean add2CuckooFilter(CuckooFilterHelper<T> helper, String key, T value, RedisDBSelector dbIndex) {
+        try {
+            CuckooPosition position = helper.position(value);
+            Long result = executeScript(CUCKOO_INSERT_SCRIPT, key, new Object[]{
+                    String.valueOf(position.getFingerprint()), String.valueOf(position.getIndex1()),
+                    String.valueOf(helper.getNumBuckets()), String.valueOf(helper.getFingerprintBits()),
+                    String.valueOf(CUCKOO_MAX_KICKS)}, dbIndex);
+            if (result == null || result == 0) {
+                log.warn("布谷鸟过滤器{}已满，添加失败", key);
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * 判断元素在布谷鸟过滤器中是否存在，两个候选桶的8个槽位通过一条BITFIELD GET命令读取
+     *
+     * @param helper  CuckooFilterHelper<T>
+     * @param key     布谷鸟过滤器名
+     * @param value   值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 可能存在返回true，一定不存在false
+     */
+    public <T> Boolean mightContainCuckoo(CuckooFilterHelper<T> helper, String key, T value, RedisDBSelector dbIndex) {
+        try {
+            CuckooPosition position = helper.position(value);
+            List<Long> slots = valueOps(dbIndex).bitField(key, cuckooBucketCommands(helper, position));
+            return slots == null || slots.contains((long) position.getFingerprint());
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * 从布谷鸟过滤器中删除元素，只能删除确实添加过的元素
+     *
+     * @param helper  CuckooFilterHelper<T>
+     * @param key     布谷鸟过滤器名
+     * @param value   值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 删除成功返回true，元素不存在或删除失败返回false
+     */
+    public <T> Boolean removeFromCuckooFilter(CuckooFilterHelper<T> helper, String key, T value, RedisDBSelector dbIndex) {
+        try {
+            CuckooPosition position = helper.position(value);
+            Long result = executeScript(CUCKOO_DELETE_SCRIPT, key, new Object[]{
+                    String.valueOf(position.getFingerprint()), String.valueOf(position.getIndex1()),
+                    String.valueOf(position.getIndex2()), String.valueOf(helper.getFingerprintBits())}, dbIndex);
+            return result != null && result != 0;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * 批量判断元素在布谷鸟过滤器中是否存在，每个元素一条BITFIELD命令，按{@code redis.bloom.pipeline-chunk-size}分批通过pipeline发送
+     *
+     * @param helper  CuckooFilterHelper<T>
+     * @param key     布谷鸟过滤器名
+     * @param values  值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 与values迭代顺序一致的判断结果，可能存在为true，一定不存在为false
+     */
+    public <T> List<Boolean> mightContainAllCuckoo(CuckooFilterHelper<T> helper, String key, Collection<T> values, RedisDBSelector dbIndex) {
+        List<Boolean> result = new ArrayList<>(values.size());
+        byte[] rawKey = rawKey(key);
+        for (List<T> chunk : Iterables.partition(values, pipelineChunkSize)) {
+            try {
+                List<CuckooPosition> positions = new ArrayList<>(chunk.size());
+                for (T value : chunk) {
+                    positions.add(helper.position(value));
+                }
+                List<Object> replies = template(dbIndex).executePipelined((RedisCallback<Object>) connection -> {
+                    for (CuckooPosition position : positions) {
+                        connection.bitField(rawKey, cuckooBucketCommands(helper, position));
+                    }
+                    return null;
+                });
+                for (int i = 0; i < positions.size(); i++) {
+                    result.add(((List<?>) replies.get(i)).contains((long) positions.get(i).getFingerprint()));
+                }
+            } catch (Exception e) {
+                //与mightContain保持一致，出错时当作可能存在处理
+                log.error(e.getMessage());
+                result.addAll(Collections.nCopies(chunk.size(), Boolean.TRUE));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 读取两个候选桶全部槽位的BITFIELD子命令
+     */
+    private BitFieldSubCommands cuckooBucketCommands(CuckooFilterHelper<?> helper, CuckooPosition position) {
+        BitFieldType type = BitFieldType.unsigned(helper.getFingerprintBits());
+        BitFieldSubCommands commands = BitFieldSubCommands.create();
+        for (int bucket : new int[]{position.getIndex1(), position.getIndex2()}) {
+            for (int j = 0; j < CuckooFilterHelper.BUCKET_SIZE; j++) {
+                long slot = (long) bucket * CuckooFilterHelper.BUCKET_SIZE + j;
+                commands = commands.get(type).valueAt(Offset.offset(slot).multipliedByTypeLength());
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * 向分片布隆过滤器中添加元素，元素的k个bit位都在同一个分片内，通过Lua脚本一次往返完成
+     *
+     * @param helper  ShardedBloomFilterHelper<T>
+     * @param key     布隆过滤器名，分片key为key:分片序号
+     * @param value   值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 添加成功返回true, 添加失败返回false
+     */
+    public <T> Boolean add2ShardedBloomFilter(ShardedBloomFilterHelper<T> helper, String key, T value, RedisDBSelector dbIndex) {
+        try {
+            ShardedOffset offset = helper.murmurHashOffset(value);
+            executeBitScript(BLOOM_ADD_SCRIPT, helper.shardKey(key, offset.getShard()), offset.getOffset(), dbIndex);
+            return true;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * 判断元素在分片布隆过滤器中是否存在，只访问元素所在的一个分片，通过Lua脚本一次往返完成
+     *
+     * @param helper  ShardedBloomFilterHelper<T>
+     * @param key     布隆过滤器名，分片key为key:分片序号
+     * @param value   值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 可能存在返回true，一定不存在false
+     */
+    public <T> Boolean mightContainSharded(ShardedBloomFilterHelper<T> helper, String key, T value, RedisDBSelector dbIndex) {
+        try {
+            ShardedOffset offset = helper.murmurHashOffset(value);
+            Long result = executeBitScript(BLOOM_CHECK_SCRIPT, helper.shardKey(key, offset.getShard()), offset.getOffset(), dbIndex);
+            return result == null || result != 0;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * 批量向分片布隆过滤器中添加元素，bit位操作先按分片分组，每个分片的操作通过pipeline一次发送
+     * (分片内元素超过{@code redis.bloom.pipeline-chunk-size}时再分批)
+     *
+     * @param helper  ShardedBloomFilterHelper<T>
+     * @param key     布隆过滤器名，分片key为key:分片序号
+     * @param values  值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 与values迭代顺序一致的添加结果，添加成功为true，所在批次执行失败为false
+     */
+    public <T> List<Boolean> addAllSharded(ShardedBloomFilterHelper<T> helper, String key, Collection<T> values, RedisDBSelector dbIndex) {
+        List<ShardedOffset> offsets = shardedOffsets(helper, values);
+        Boolean[] result = new Boolean[offsets.size()];
+        groupByShard(offsets).forEach((shard, indexes) -> {
+            byte[] rawKey = rawKey(helper.shardKey(key, shard));
+            for (List<Integer> chunk : Lists.partition(indexes, pipelineChunkSize)) {
+                try {
+                    template(dbIndex).executePipelined((RedisCallback<Object>) connection -> {
+                        for (Integer index : chunk) {
+                            for (long i : offsets.get(index).getOffset()) {
+                                connection.setBit(rawKey, i, true);
+                            }
+                        }
+                        return null;
+                    });
+                    chunk.forEach(index -> result[index] = Boolean.TRUE);
+                } catch (Exception e) {
+                    log.error(e.getMessage());
+                    chunk.forEach(index -> result[index] = Boolean.FALSE);
+                }
+            }
+        });
+        return Arrays.asList(result);
+    }
+
+    /**
+     * 批量判断元素在分片布隆过滤器中是否存在，bit位读取先按分片分组，每个分片的读取通过pipeline一次发送
+     * (分片内元素超过{@code redis.bloom.pipeline-chunk-size}时再分批)
+     *
+     * @param helper  ShardedBloomFilterHelper<T>
+     * @param key     布隆过滤器名，分片key为key:分片序号
+     * @param values  值
+     * @param dbIndex 选择Redis数据库
+     * @param <T>     参数的值
+     * @return 与values迭代顺序一致的判断结果，可能存在为true，一定不存在为false
+     */
+    public <T> List<Boolean> mightContainAllSharded(ShardedBloomFilterHelper<T> helper, String key, Collection<T> values, RedisDBSelector dbIndex) {
+        List<ShardedOffset> offsets = shardedOffsets(helper, values);
+        Boolean[] result = new Boolean[offsets.size()];
+        groupByShard(offsets).forEach((shard, indexes) -> {
+            byte[] rawKey = rawKey(helper.shardKey(key, shard));
+            for (List<Integer> chunk : Lists.partition(indexes, pipelineChunkSize)) {
+                try {
+                    List<Object> bits = template(dbIndex).executePipelined((RedisCallback<Object>) connection -> {
+                        for (Integer index : chunk) {
+                            for (long i : offsets.get(index).getOffset()) {
+                                connection.getBit(rawKey, i);
+                            }
+                        }
+                        return null;
+                    });
+                    int cursor = 0;
+                    for (Integer index : chunk) {
+                        boolean contain = true;
+                        for (int i = 0; i < helper.getNumHashFunctions(); i++) {
+                            contain &= Boolean.TRUE.equals(bits.get(cursor++));
+                        }
+                        result[index] = contain;
+                    }
+                } catch (Exception e) {
+                    //与mightContain保持一致，出错时当作可能存在处理
+                    log.error(e.getMessage());
+                    chunk.forEach(index -> result[index] = Boolean.TRUE);
+                }
+            }
+        });
+        return Arrays.asList(result);
+    }
+
+    /**
+     * 批量向可扩容布隆过滤器的一层添加元素，每个元素一次脚本调用，所有调用通过一个pipeline发送。
+     * 脚本校验调用方的层序号，层数已经变化时不做修改并返回负的最新层数。执行失败时抛出异常，由调用方决定如何处理
+     *
+     * @param layersKey 层数key
+     * @param layerKey  当前层的bitmap
+     * @param countKey  当前层的元素计数
+     * @param layer     调用方认为的当前层序号(从0开始)
+     * @param capacity  当前层容量
+     * @param offsets   每个元素在当前层的bit偏移量
+     * @param dbIndex   选择Redis数据库
+     * @return 与offsets顺序一致的脚本返回值，写入成功为最新层数，层序号过期为负的最新层数
+     */
+    public List<Long> addAllToScalableLayer(String layersKey, String layerKey, String countKey, int layer, long capacity,
+                                            List<int[]> offsets, RedisDBSelector dbIndex) {
+        byte[][] head = {rawKey(layersKey), rawKey(layerKey), rawKey(countKey),
+                rawKey(String.valueOf(layer)), rawKey(String.valueOf(capacity))};
+        List<byte[][]> keysAndArgs = new ArrayList<>(offsets.size());
+        for (int[] offset : offsets) {
+            byte[][] call = Arrays.copyOf(head, head.length + offset.length);
+            for (int i = 0; i < offset.length; i++) {
+                call[head.length + i] = rawKey(String.valueOf(offset[i]));
+            }
+            keysAndArgs.add(call);
+        }
+        return executeScriptPipelined(SCALABLE_BLOOM_ADD_SCRIPT, 3, keysAndArgs, dbIndex);
+    }
+
+    private <T> List<ShardedOffset> shardedOffsets(ShardedBloomFilterHelper<T> helper, Collection<T> values) {
+        List<ShardedOffset> offsets = new ArrayList<>(values.size());
+        for (T value : values) {
+            offsets.add(helper.murmurHashOffset(value));
+        }
+        return offsets;
+    }
+
+    /**
+     * 按分片对元素下标分组
+     */
+    private Map<Integer, List<Integer>> groupByShard(List<ShardedOffset> offsets) {
+        Map<Integer, List<Integer>> groups = new TreeMap<>();
+        for (int i = 0; i < offsets.size(); i++) {
+            groups.computeIfAbsent(offsets.get(i).getShard(), shard -> new ArrayList<>()).add(i);
+        }
+        return groups;
+    }
+
+    private <T> List<int[]> murmurHashOffsets(BloomFilterHelper<T> helper, List<T> values) {
+        List<int[]> offsets = new ArrayList<>(values.size());
+        for (T value : values) {
+            offsets.add(helper.murmurHashOffset(value));
+        }
+        return offsets;
+    }
+
+    private byte[] rawKey(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 以bit偏移量为参数执行布隆过滤器脚本，参数和返回值都按字符串序列化，避免被Jackson附加类型信息
+     */
+    private Long executeBitScript(RedisScript<Long> script, String key, int[] offset, RedisDBSelector dbIndex) {
+        Object[] args = new Object[offset.length];
+        for (int i = 0; i < offset.length; i++) {
+            args[i] = String.valueOf(offset[i]);
+        }
+        return executeScript(script, key, args, dbIndex);
+    }
+
+    private Long executeBitScript(RedisScript<Long> script, String key, long[] offset, RedisDBSelector dbIndex) {
+        Object[] args = new Object[offset.length];
+        for (int i = 0; i < offset.length; i++) {
+            args[i] = String.valueOf(offset[i]);
+        }
+        return executeScript(script, key, args, dbIndex);
+    }
+
+    /**
+     * 记录一次布隆过滤器调用产生的Redis网络往返次数，一次pipeline或一次Lua脚本调用算一次往返
+     */
+    private void recordRoundTrips(String key, String operation, int roundTrips) {
+        roundTripSummaries.computeIfAbsent(key + ':' + operation, id -> DistributionSummary.builder("bloom.filter.redis.round.trips")
+                .description("每次布隆过滤器调用的Redis网络往返次数")
+                .tag("key", key)
+                .tag("operation", operation)
+                .register(meterRegistry))
+                .record(roundTrips);
+    }
+
+    private Long executeScript(RedisScript<Long> script, String key, Object[] args, RedisDBSelector dbIndex) {
+        ObjectRedisTemplate template = template(dbIndex);
+        RedisSerializer<String> serializer = template.getStringSerializer();
+        return template.execute(script, serializer, LONG_SERIALIZER, Collections.singletonList(key), args);
+    }
+
+    /**
+     * 通过一个pipeline多次执行同一个Lua脚本，只发送EVALSHA。Redis中没有缓存该脚本时加载一次脚本后重新执行整批，
+     * 因此脚本需要能够安全地重复执行
+     *
+     * @param script      脚本
+     * @param numKeys     每次调用的key个数
+     * @param keysAndArgs 每次调用的key和参数
+     * @param dbIndex     选择Redis数据库
+     * @return 与keysAndArgs顺序一致的脚本返回值
+     */
+    private List<Long> executeScriptPipelined(RedisScript<Long> script, int numKeys, List<byte[][]> keysAndArgs, RedisDBSelector dbIndex) {
+        RedisCallback<Object> callback = connection -> {
+            for (byte[][] call : keysAndArgs) {
+                connection.evalSha(script.getSha1(), ReturnType.INTEGER, numKeys, call);
+            }
+            return null;
+        };
+        List<Object> replies;
+        try {
+            replies = template(dbIndex).executePipelined(callback, LONG_SERIALIZER);
+        } catch (RuntimeException e) {
+            if (!isNoScriptError(e)) {
+                throw e;
+            }
+            template(dbIndex).execute((RedisCallback<String>) connection ->
+                    connection.scriptLoad(script.getScriptAsString().getBytes(StandardCharsets.UTF_8)));
+            replies = template(dbIndex).executePipelined(callback, LONG_SERIALIZER);
+        }
+        List<Long> result = new ArrayList<>(replies.size());
+        for (Object reply : replies) {
+            result.add((Long) reply);
+        }
+        return result;
+    }
+
+    private static boolean isNoScriptError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static RedisScript<Long> loadScript(String path) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+}
@@ -0,0 +1,140 @@
+package top.easyblog.common.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * 按key合并并发加载。同一个key同一时刻只有一个线程执行加载，其余线程等待并共享它的结果，
+ * 加载结束后立即移除，下一次加载重新执行，不缓存结果。同步和异步两种调用方式共用同一组进行中的加载
+ *
+ * @param <K> key类型
+ * @param <V> 结果类型
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    /**
+     * 在当前线程执行加载，若同一个key已经有加载在进行中，则阻塞等待它的结果
+     *
+     * @param key    key
+     * @param loader 加载逻辑
+     * @return 加载结果
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = calls.putIfAbsent(key, call);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (Throwable e) {
+            //Error也要结束进行中的加载，否则等待方会一直阻塞
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    /**
+     * 在executor中执行加载，若同一个key已经有加载在进行中，则直接返回它的结果
+     *
+     * @param key      key
+     * @param loader   加载逻辑
+     * @param executor 执行加载的线程池
+     * @return 加载结果
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<V> loader, Executor executor) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = calls.putIfAbsent(key, call);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    call.complete(loader.get());
+                } catch (Throwable e) {
+                    call.completeExceptionally(e);
+                } finally {
+                    calls.remove(key, call);
+                }
+            });
+        } catch (RuntimeException e) {
+            //线程池拒绝执行
+            calls.remove(key, call);
+            call.completeExceptionally(e);
+        }
+        return call;
+    }
+
+    /**
+     * 由loader自己发起异步加载，适合加载过程中有等待、不应当占用线程的场景。
+     * 若同一个key已经有加载在进行中，则直接返回它的结果
+     *
+     * @param key    key
+     * @param loader 在调用线程上执行，返回异步加载的结果，不能阻塞
+     * @return 加载结果
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<? extends CompletionStage<V>> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = calls.putIfAbsent(key, call);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            loader.get().whenComplete((value, e) -> {
+                if (e != null) {
+                    call.completeExceptionally(e);
+                } else {
+                    call.complete(value);
+                }
+                calls.remove(key, call);
+            });
+        } catch (RuntimeException e) {
+            calls.remove(key, call);
+            call.completeExceptionally(e);
+        }
+        return call;
+    }
+
+    /**
+     * 当前正在进行中的加载数
+     */
+    public int inFlight() {
+        return calls.size();
+    }
+
+    /**
+     * 同步调用方等待同一个key进行中的加载，加载抛出的RuntimeException和Error原样抛给每个等待方
+     *
+     * @param call 进行中的加载
+     * @return 加载结果
+     */
+    protected V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+}
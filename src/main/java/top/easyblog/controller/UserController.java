@@ -1,14 +1,20 @@
 package top.easyblog.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
 import top.easyblog.entity.User;
 import top.easyblog.service.UserService;
 
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
 /**
  * @author ：huangxin
  * @modified ：
@@ -20,9 +26,24 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    /**
+     * 批量查询一次最多允许的id个数，超过时返回400，避免单个请求占用线程做超大的布隆过滤器、Redis和数据库批量查询
+     */
+    @Value("${user.query.max-batch-size:1000}")
+    private int maxBatchSize;
+
     @ResponseBody
     @GetMapping(value = "/user")
-    public User searchUser(@RequestParam(value = "id") int id) {
-        return userService.getUserById(id);
+    public CompletionStage<User> searchUser(@RequestParam(value = "id") int id) {
+        return userService.getUserByIdAsync(id);
+    }
+
+    @ResponseBody
+    @GetMapping(value = "/users")
+    public List<User> searchUsers(@RequestParam(value = "ids") List<Integer> ids) {
+        if (ids.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "一次最多查询" + maxBatchSize + "个用户");
+        }
+        return userService.getUsersByIds(ids);
     }
 }
@@ -1,6 +1,7 @@
 package top.easyblog.mapper;
 
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.stereotype.Repository;
 import top.easyblog.entity.User;
 
@@ -18,6 +19,17 @@ public interface UserMapper {
 
     User selectByPrimaryKey(Integer userId);
 
+    List<User> selectByPrimaryKeys(@Param("userIds") List<Integer> userIds);
+
     List<User> selectAll();
 
+    Integer selectMinUserId();
+
+    Integer selectMaxUserId();
+
+    /**
+     * 流式读取[fromId, toId)范围内的user_id，必须在显式打开的SqlSession中迭代
+     */
+    Cursor<Integer> scanUserIds(@Param("fromId") int fromId, @Param("toId") long toId);
+
 }
\ No newline at end of file
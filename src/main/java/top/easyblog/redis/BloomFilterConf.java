@@ -0,0 +1,82 @@
+package top.easyblog.redis;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import top.easyblog.common.bloom.BloomFilter;
+import top.easyblog.common.bloom.BloomFilterHealthIndicator;
+import top.easyblog.common.bloom.BloomFilterMonitor;
+import top.easyblog.common.bloom.BloomFilterProperties;
+import top.easyblog.common.bloom.BloomFilterRegistry;
+import top.easyblog.common.util.RedisUtils;
+
+/**
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+@Configuration
+@EnableConfigurationProperties(BloomFilterProperties.class)
+public class BloomFilterConf {
+
+    /**
+     * 用户信息布隆过滤器在application.yml中的名称
+     */
+    public static final String USER_INFO_FILTER = "user-info";
+
+    /**
+     * 布隆过滤器注册表，启动时创建所有配置的布隆过滤器
+     *
+     * @param properties
+     * @param redisUtils
+     * @param meterRegistry 没有引入Actuator时使用不记录指标的全局注册表
+     * @return
+     */
+    @Bean
+    public BloomFilterRegistry bloomFilterRegistry(BloomFilterProperties properties, RedisUtils redisUtils, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BloomFilterRegistry(properties, redisUtils, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    /**
+     * 布隆过滤器填充率监控，定时分段BITCOUNT估算元素个数和误判率
+     *
+     * @param registry
+     * @param properties
+     * @param redisUtils
+     * @param publisher
+     * @param meterRegistry
+     * @return
+     */
+    @Bean
+    public BloomFilterMonitor bloomFilterMonitor(BloomFilterRegistry registry, BloomFilterProperties properties, RedisUtils redisUtils,
+                                                 ApplicationEventPublisher publisher, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BloomFilterMonitor(registry, properties, redisUtils, publisher, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    /**
+     * 布隆过滤器健康检查，在/actuator/health中显示为bloomFilter
+     *
+     * @param monitor
+     * @return
+     */
+    @Bean
+    public BloomFilterHealthIndicator bloomFilterHealthIndicator(BloomFilterMonitor monitor) {
+        return new BloomFilterHealthIndicator(monitor);
+    }
+
+    /**
+     * 用户信息布隆过滤器
+     *
+     * @param registry
+     * @return
+     */
+    @Bean
+    public BloomFilter<Long> userInfoBloomFilter(BloomFilterRegistry registry) {
+        return registry.get(USER_INFO_FILTER);
+    }
+
+}
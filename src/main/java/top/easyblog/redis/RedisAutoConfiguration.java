@@ -3,11 +3,10 @@ package top.easyblog.redis;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
-import org.springframework.data.redis.core.*;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -22,9 +21,31 @@ public class RedisAutoConfiguration extends org.springframework.boot.autoconfigu
 
     @Bean(name = "redisTemplate")
     public ObjectRedisTemplate objectRedisTemplate(LettuceConnectionFactory factory) {
-        ObjectRedisTemplate redisTemplate = new ObjectRedisTemplate();
         //不共享连接
         factory.setShareNativeConnection(false);
+        return configureTemplate(new ObjectRedisTemplate(), factory);
+    }
+
+    /**
+     * 按数据库划分的RedisTemplate池，RedisUtils通过它访问各个库
+     *
+     * @param factory
+     * @param redisTemplate
+     * @return
+     */
+    @Bean
+    public RedisTemplatePool redisTemplatePool(LettuceConnectionFactory factory, ObjectRedisTemplate redisTemplate) {
+        return new RedisTemplatePool(factory, redisTemplate);
+    }
+
+    /**
+     * 设置RedisTemplate的连接工厂和序列化方式
+     *
+     * @param redisTemplate
+     * @param factory
+     * @return
+     */
+    static ObjectRedisTemplate configureTemplate(ObjectRedisTemplate redisTemplate, RedisConnectionFactory factory) {
         redisTemplate.setConnectionFactory(factory);
         Jackson2JsonRedisSerializer jackson2Json = new Jackson2JsonRedisSerializer(Object.class);
         ObjectMapper mapper = new ObjectMapper();
@@ -44,34 +65,4 @@ public class RedisAutoConfiguration extends org.springframework.boot.autoconfigu
         return redisTemplate;
     }
 
-    @Bean
-    @ConditionalOnMissingBean
-    public HashOperations<String, String, Object> hashOperations(RedisTemplate<String, Object> redisTemplate) {
-        return redisTemplate.opsForHash();
-    }
-
-    @Bean
-    @ConditionalOnMissingBean
-    public ValueOperations<String, Object> valueOperations(RedisTemplate<String, Object> redisTemplate) {
-        return redisTemplate.opsForValue();
-    }
-
-    @Bean
-    @ConditionalOnMissingBean
-    public ListOperations<String, Object> listOperations(RedisTemplate<String, Object> redisTemplate) {
-        return redisTemplate.opsForList();
-    }
-
-    @Bean
-    @ConditionalOnMissingBean
-    public SetOperations<String, Object> setOperations(RedisTemplate<String, Object> redisTemplate) {
-        return redisTemplate.opsForSet();
-    }
-
-    @Bean
-    @ConditionalOnMissingBean
-    public ZSetOperations<String, Object> zSetOperations(RedisTemplate<String, Object> redisTemplate) {
-        return redisTemplate.opsForZSet();
-    }
-
 }
@@ -0,0 +1,102 @@
+package top.easyblog.redis;
+
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import top.easyblog.common.enums.RedisDBSelector;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按数据库划分的RedisTemplate池。每个{@link RedisDBSelector}第一次使用时创建独立的LettuceConnectionFactory和ObjectRedisTemplate，之后复用，
+ * 连接建立时就已经SELECT到对应的库，不同库的读写互不影响，不再需要在共享的连接工厂上切换数据库
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+@Slf4j
+public class RedisTemplatePool implements DisposableBean {
+
+    private final LettuceConnectionFactory defaultFactory;
+
+    private final ObjectRedisTemplate defaultTemplate;
+
+    private final Map<RedisDBSelector, LettuceConnectionFactory> factories = new ConcurrentHashMap<>();
+
+    private final Map<RedisDBSelector, ObjectRedisTemplate> templates = new ConcurrentHashMap<>();
+
+    private final Map<RedisDBSelector, LettuceConnection> asyncConnections = new ConcurrentHashMap<>();
+
+    public RedisTemplatePool(LettuceConnectionFactory defaultFactory, ObjectRedisTemplate defaultTemplate) {
+        this.defaultFactory = defaultFactory;
+        this.defaultTemplate = defaultTemplate;
+    }
+
+    /**
+     * 获取指定库的RedisTemplate，dbIndex为null时使用DB_0
+     *
+     * @param dbIndex
+     * @return
+     */
+    public ObjectRedisTemplate getTemplate(RedisDBSelector dbIndex) {
+        RedisDBSelector db = dbIndex == null ? RedisDBSelector.DB_0 : dbIndex;
+        if (db.getDb() == defaultFactory.getDatabase()) {
+            return defaultTemplate;
+        }
+        return templates.computeIfAbsent(db, key -> RedisAutoConfiguration.configureTemplate(new ObjectRedisTemplate(), getConnectionFactory(key)));
+    }
+
+    /**
+     * 获取指定库的连接工厂，dbIndex为null时使用DB_0
+     *
+     * @param dbIndex
+     * @return
+     */
+    public LettuceConnectionFactory getConnectionFactory(RedisDBSelector dbIndex) {
+        RedisDBSelector db = dbIndex == null ? RedisDBSelector.DB_0 : dbIndex;
+        if (db.getDb() == defaultFactory.getDatabase()) {
+            return defaultFactory;
+        }
+        return factories.computeIfAbsent(db, this::createConnectionFactory);
+    }
+
+    /**
+     * 获取指定库的Lettuce异步命令接口，dbIndex为null时使用DB_0。每个库持有一条长期打开的专用连接，
+     * 异步命令本身是线程安全的，所有调用方共用这条连接，命令在连接上自然形成pipeline
+     *
+     * @param dbIndex
+     * @return 键和值都是原始字节的异步命令接口
+     */
+    public RedisClusterAsyncCommands<byte[], byte[]> getAsyncCommands(RedisDBSelector dbIndex) {
+        RedisDBSelector db = dbIndex == null ? RedisDBSelector.DB_0 : dbIndex;
+        LettuceConnection connection = asyncConnections.computeIfAbsent(db, key -> (LettuceConnection) getConnectionFactory(key).getConnection());
+        return connection.getNativeConnection();
+    }
+
+    @Override
+    public void destroy() {
+        asyncConnections.values().forEach(LettuceConnection::close);
+        factories.values().forEach(LettuceConnectionFactory::destroy);
+    }
+
+    /**
+     * 复制默认连接工厂的地址和客户端配置(连接池、超时等)，只替换数据库索引
+     */
+    private LettuceConnectionFactory createConnectionFactory(RedisDBSelector db) {
+        RedisStandaloneConfiguration base = defaultFactory.getStandaloneConfiguration();
+        RedisStandaloneConfiguration standalone = new RedisStandaloneConfiguration(base.getHostName(), base.getPort());
+        standalone.setPassword(base.getPassword());
+        standalone.setDatabase(db.getDb());
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(standalone, defaultFactory.getClientConfiguration());
+        factory.setShareNativeConnection(defaultFactory.getShareNativeConnection());
+        factory.afterPropertiesSet();
+        log.info("创建Redis数据库{}的连接工厂", db.getDb());
+        return factory;
+    }
+
+}
@@ -0,0 +1,35 @@
+package top.easyblog.redis;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import top.easyblog.common.codec.JsonValueCodec;
+import top.easyblog.common.codec.UserBinaryCodec;
+import top.easyblog.common.codec.ValueCodec;
+import top.easyblog.entity.User;
+
+/**
+ * 缓存值编解码器配置
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+@Configuration
+public class ValueCodecConf {
+
+    /**
+     * USER_INFO中用户的编解码器，binary为紧凑二进制格式(可以读取旧的JSON数据)，json为原有的双层JSON格式
+     *
+     * @param codec
+     * @return
+     */
+    @Bean
+    public ValueCodec<User> userValueCodec(@Value("${user.cache.codec:binary}") String codec) {
+        if ("json".equalsIgnoreCase(codec)) {
+            return new JsonValueCodec<>(User.class);
+        }
+        return new UserBinaryCodec();
+    }
+
+}
@@ -0,0 +1,169 @@
+package top.easyblog.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+import top.easyblog.common.bloom.BloomFilter;
+import top.easyblog.mapper.UserMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 用户布隆过滤器预热。把user_id的取值范围切成若干段，每段在独立的SqlSession中用Cursor流式读取user_id，
+ * 攒满一批后通过pipeline写入布隆过滤器，各段并行执行。每个线程只保留一批id，内存占用与用户总数无关。
+ * 写入失败的id会重试，重试后仍然失败时整个预热失败，不会留下缺少id的布隆过滤器而把存在的用户判为不存在
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+@Slf4j
+@Service
+public class UserBloomFilterWarmUp implements ApplicationRunner {
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+    @Autowired
+    private BloomFilter<Long> userInfoBloomFilter;
+
+    /**
+     * 应用启动时是否自动预热
+     */
+    @Value("${user.warm-up.on-startup:false}")
+    private boolean onStartup;
+
+    /**
+     * 并行读取的id段数，每段占用一个数据库连接，0表示使用CPU核数
+     */
+    @Value("${user.warm-up.parallelism:0}")
+    private int parallelism;
+
+    /**
+     * 每次写入布隆过滤器的id个数
+     */
+    @Value("${user.warm-up.batch-size:5000}")
+    private int batchSize;
+
+    /**
+     * 一批中写入失败的id的重试次数，重试后仍有失败时该段预热失败
+     */
+    @Value("${user.warm-up.max-retries:3}")
+    private int maxRetries;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (onStartup) {
+            warmUp();
+        }
+    }
+
+    /**
+     * 把数据库中所有的user_id写入布隆过滤器
+     *
+     * @return 写入的id个数
+     */
+    public long warmUp() {
+        long start = System.currentTimeMillis();
+        Integer minId;
+        Integer maxId;
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            UserMapper mapper = session.getMapper(UserMapper.class);
+            minId = mapper.selectMinUserId();
+            maxId = mapper.selectMaxUserId();
+        }
+        if (minId == null || maxId == null) {
+            log.info("用户表为空，跳过布隆过滤器预热");
+            return 0;
+        }
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        long span = (long) maxId - minId + 1;
+        long rangeSize = (span + threads - 1) / threads;
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("bloom-warm-up-%d").setDaemon(true).build());
+        try {
+            List<Future<Long>> futures = new ArrayList<>(threads);
+            for (long from = minId; from <= maxId; from += rangeSize) {
+                int fromId = (int) from;
+                long toId = Math.min(from + rangeSize, (long) maxId + 1);
+                futures.add(executor.submit(() -> warmUpRange(fromId, toId)));
+            }
+            long total = 0;
+            for (Future<Long> future : futures) {
+                total += future.get();
+            }
+            log.info("用户布隆过滤器预热完成: {}个id, {}段并行, 耗时{}ms", total, futures.size(), System.currentTimeMillis() - start);
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("布隆过滤器预热被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("布隆过滤器预热失败", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 流式读取[fromId, toId)范围内的user_id并分批写入布隆过滤器
+     */
+    private long warmUpRange(int fromId, long toId) {
+        long count = 0;
+        List<Long> batch = new ArrayList<>(batchSize);
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Cursor<Integer> cursor = session.getMapper(UserMapper.class).scanUserIds(fromId, toId)) {
+            for (Integer userId : cursor) {
+                batch.add(userId.longValue());
+                if (batch.size() >= batchSize) {
+                    count += flush(batch);
+                }
+            }
+        } catch (IOException e) {
+            log.error("关闭Cursor失败: {}", e.getMessage());
+        }
+        return count + flush(batch);
+    }
+
+    /**
+     * 把一批id写入布隆过滤器，putAll返回false的id单独重试，重试maxRetries次后仍有失败时抛出异常
+     *
+     * @return 写入成功的id个数
+     */
+    private int flush(List<Long> batch) {
+        int written = 0;
+        List<Long> pending = new ArrayList<>(batch);
+        batch.clear();
+        for (int attempt = 0; !pending.isEmpty(); attempt++) {
+            if (attempt > maxRetries) {
+                throw new IllegalStateException("布隆过滤器写入失败: " + pending.size() + "个id重试" + maxRetries + "次后仍未写入");
+            }
+            List<Boolean> results = userInfoBloomFilter.putAll(pending);
+            List<Long> failed = new ArrayList<>();
+            for (int i = 0; i < pending.size(); i++) {
+                if (Boolean.TRUE.equals(results.get(i))) {
+                    written++;
+                } else {
+                    failed.add(pending.get(i));
+                }
+            }
+            if (!failed.isEmpty()) {
+                log.warn("布隆过滤器第{}次写入时{}个id失败", attempt + 1, failed.size());
+            }
+            pending = failed;
+        }
+        return written;
+    }
+
+}
@@ -1,16 +1,47 @@
 package top.easyblog.service;
 
-import com.alibaba.fastjson.JSONObject;
-import com.google.common.base.Charsets;
-import com.google.common.hash.Funnel;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import top.easyblog.common.BloomFilterHelper;
+import top.easyblog.common.bloom.BloomFilter;
+import top.easyblog.common.codec.ValueCodec;
 import top.easyblog.common.enums.RedisDBSelector;
 import top.easyblog.common.util.RedisUtils;
+import top.easyblog.common.util.SingleFlight;
 import top.easyblog.entity.User;
 import top.easyblog.mapper.UserMapper;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 /**
  * @author ：huangxin
  * @modified ：
@@ -19,10 +50,156 @@ import top.easyblog.mapper.UserMapper;
 @Service
 public class UserService {
 
+    /**
+     * 用户缓存按id哈希分桶，每个桶是一个小hash：USER_INFO:{bucket}
+     */
+    private static final String USER_INFO_KEY_PREFIX = "USER_INFO:";
+
+    /**
+     * 分布式回源租约的key前缀，持有租约的节点负责查询数据库并写回缓存
+     */
+    private static final String USER_INFO_LEASE_PREFIX = "USER_INFO_LEASE:";
+
+    /**
+     * 数据库中不存在的id的标记：USER_INFO_NULL:{id}。标记是独立的短过期时间key而不是桶中的项，
+     * 到期后由Redis删除，不会在桶中堆积
+     */
+    private static final String USER_INFO_NULL_PREFIX = "USER_INFO_NULL:";
+
+    /**
+     * 不存在标记的值，只判断key是否存在
+     */
+    private static final byte[] NULL_MARKER = {0};
+
+    /**
+     * 没有拿到租约时轮询缓存的间隔
+     */
+    private static final long LEASE_POLL_MILLIS = 20;
+
+    /**
+     * 缓存中读到不存在标记时返回的占位对象，只在本类内部按引用比较，不会返回给调用方
+     */
+    private static final User NOT_FOUND = new User();
+
     @Autowired
     private UserMapper userMapper;
     @Autowired
     private RedisUtils redisUtils;
+    @Autowired
+    private BloomFilter<Long> userInfoBloomFilter;
+    @Autowired
+    private ValueCodec<User> userValueCodec;
+    /**
+     * 没有引入Actuator时使用Micrometer的全局注册表，不记录任何指标
+     */
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    /**
+     * 以tag组合缓存的meter，热点路径上不重复构建和查找
+     */
+    private final Map<String, Timer> queryTimers = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> falsePositiveCounters = new ConcurrentHashMap<>();
+
+    /**
+     * 异步查询中回源数据库的线程数，默认与Druid的max-active一致
+     */
+    @Value("${user.query.db-threads:20}")
+    private int dbThreads;
+
+    /**
+     * 异步查询回源数据库使用的线程池，避免在Lettuce的I/O线程上执行阻塞的JDBC调用
+     */
+    private ExecutorService dbExecutor;
+
+    /**
+     * 异步查询中没有拿到租约时定时轮询缓存的线程，等待期间不占用dbExecutor的线程
+     */
+    private ScheduledExecutorService leaseScheduler;
+
+    /**
+     * 是否在多个节点之间也只让一个节点回源，通过带随机token的Redis租约实现
+     */
+    @Value("${user.query.distributed-lease-enabled:false}")
+    private boolean distributedLeaseEnabled;
+
+    /**
+     * 回源租约的有效期(秒)，也是没有拿到租约的节点等待缓存写回的最长时间
+     */
+    @Value("${user.query.lease-seconds:2}")
+    private int leaseSeconds;
+
+    /**
+     * 批量回源时每条IN查询最多包含的id个数
+     */
+    @Value("${user.query.in-list-chunk-size:500}")
+    private int inListChunkSize;
+
+    /**
+     * 用户缓存的桶数，平均每个桶的项数应当远小于hash-max-ziplist-entries，最大的桶也能保持ziplist/listpack紧凑编码
+     */
+    @Value("${user.cache.buckets:32768}")
+    private int buckets;
+
+    /**
+     * 用户缓存桶的基准过期时间(秒)
+     */
+    @Value("${user.cache.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    /**
+     * 过期时间的随机浮动比例，每个桶的过期时间在ttl * (1 ± ratio)内随机选取
+     */
+    @Value("${user.cache.ttl-jitter-ratio:0.2}")
+    private double ttlJitterRatio;
+
+    /**
+     * 数据库中不存在的id(布隆过滤器误判或已删除)的缓存时间(秒)，期间重复请求不再查询数据库
+     */
+    @Value("${user.cache.negative-ttl-seconds:30}")
+    private long negativeTtlSeconds;
+
+    /**
+     * 进程内一级缓存最多保存的用户数
+     */
+    @Value("${user.query.local-cache-maximum-size:10000}")
+    private long localCacheMaximumSize;
+
+    /**
+     * 进程内一级缓存的过期时间(秒)，短于Redis中用户缓存桶的过期时间，其它节点的修改最多延迟这么久可见
+     */
+    @Value("${user.query.local-cache-expire-seconds:60}")
+    private long localCacheExpireSeconds;
+
+    /**
+     * 进程内一级缓存，保存已经解析好的User，命中时不访问Redis也不做JSON解析
+     */
+    private Cache<Integer, User> localUsers;
+
+    /**
+     * 本节点内同一个id同一时刻只有一个线程回源数据库
+     */
+    private final SingleFlight<Integer, User> userLoads = new SingleFlight<>();
+
+    @PostConstruct
+    public void init() {
+        dbExecutor = Executors.newFixedThreadPool(dbThreads,
+                new ThreadFactoryBuilder().setNameFormat("user-db-%d").setDaemon(true).build());
+        leaseScheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("user-lease-poll").setDaemon(true).build());
+        localUsers = Caffeine.newBuilder()
+                .maximumSize(localCacheMaximumSize)
+                .expireAfterWrite(localCacheExpireSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        dbExecutor.shutdown();
+        leaseScheduler.shutdownNow();
+    }
 
 
     /**
@@ -32,24 +209,410 @@ public class UserService {
      * @return
      */
     public User getUserById(int id) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        //一级缓存中只有存在的用户，命中时不需要再经过布隆过滤器
+        User local = localUsers.getIfPresent(id);
+        if (local != null) {
+            sample.stop(queryTimer("getUserById", "local"));
+            return local;
+        }
         //布隆过滤器先过滤是否是合适的id
-        BloomFilterHelper<String> filter = new BloomFilterHelper<>((Funnel<String>) (from, into) ->
-                into.putString(from, Charsets.UTF_8).putString(from, Charsets.UTF_8), 1500000, 0.001);
-        Boolean isOk = redisUtils.mightContain(filter, "USER_INFO", id + "", RedisDBSelector.DB_1);
+        Boolean isOk = userInfoBloomFilter.mightContain((long) id);
         if(isOk) {
-            System.out.println("id: "+id+"可能存在，去Redis中查缓存");
             //验证过了之后去Redis中尝试获取
-            String infoStr = (String) redisUtils.hget("USER_INFO", id + "", RedisDBSelector.DB_0);
-            User user = JSONObject.parseObject(infoStr, User.class);
+            User user = getCached(id);
+            if (user == NOT_FOUND) {
+                //不久前刚确认过数据库中没有
+                falsePositive("negative-cache");
+                sample.stop(queryTimer("getUserById", "not-found"));
+                return null;
+            }
+            if (user != null) {
+                sample.stop(queryTimer("getUserById", "redis"));
+                return user;
+            }
+            //发现没有再从数据库中查询，并发的相同id只查询一次
+            user = userLoads.execute(id, () -> loadAndCache(id));
             if (user == null) {
-                //发现没有再从数据库中查询
-                user = userMapper.selectByPrimaryKey(id);
-                redisUtils.hset("USER_INFO", id + "", JSONObject.toJSONString(user), 60 * 60, RedisDBSelector.DB_0);
+                falsePositive("db");
             }
+            sample.stop(queryTimer("getUserById", user == null ? "not-found" : "db"));
             return user;
         }
-        System.out.println("id: "+id+"不存在，去Redis中查缓存");
+        sample.stop(queryTimer("getUserById", "absent"));
         return null;
     }
 
+    /**
+     * 异步根据Id获取用户数据。布隆过滤器检查和Redis缓存读取同时发出，两者都不占用调用线程；
+     * 布隆过滤器判定不存在时直接以null完成，缓存未命中时在数据库线程池中回源，并发的相同id只回源一次
+     *
+     * @param id
+     * @return
+     */
+    public CompletionStage<User> getUserByIdAsync(int id) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        User local = localUsers.getIfPresent(id);
+        if (local != null) {
+            sample.stop(queryTimer("getUserByIdAsync", "local"));
+            return CompletableFuture.completedFuture(local);
+        }
+        CompletionStage<Boolean> isOk = userInfoBloomFilter.mightContainAsync((long) id);
+        //与布隆过滤器检查并行地预读缓存，大部分请求的id都存在，省掉一次串行的往返
+        CompletionStage<byte[]> cached = redisUtils.hgetRawAsync(bucketKey(id), id + "", RedisDBSelector.DB_0);
+        return isOk.thenCompose(exists -> {
+            if (!exists) {
+                sample.stop(queryTimer("getUserByIdAsync", "absent"));
+                return CompletableFuture.completedFuture(null);
+            }
+            return cached.thenCompose(bytes -> {
+                User user = userValueCodec.decode(bytes);
+                if (user != null) {
+                    localUsers.put(id, user);
+                    sample.stop(queryTimer("getUserByIdAsync", "redis"));
+                    return CompletableFuture.completedFuture(user);
+                }
+                //桶中没有时再检查不存在标记，只有未命中的请求多一次往返
+                return redisUtils.hasKeyAsync(nullKey(id), RedisDBSelector.DB_0).thenCompose(negative -> {
+                    if (negative) {
+                        falsePositive("negative-cache");
+                        sample.stop(queryTimer("getUserByIdAsync", "not-found"));
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return userLoads.executeAsync(id, () -> loadAndCacheAsync(id)).whenComplete((loaded, e) -> {
+                        if (e == null && loaded == null) {
+                            falsePositive("db");
+                        }
+                        sample.stop(queryTimer("getUserByIdAsync", e != null ? "error" : loaded == null ? "not-found" : "db"));
+                    });
+                });
+            });
+        });
+    }
+
+    /**
+     * 批量根据Id获取用户数据。一级缓存未命中的id通过一次批量布隆过滤器检查过滤，
+     * 剩下的id用一次HMGET从Redis读取，缓存未命中的id分批IN查询数据库，最后通过一个pipeline写回Redis
+     *
+     * @param ids
+     * @return 按ids顺序排列的存在的用户，重复和不存在的id被忽略
+     */
+    public List<User> getUsersByIds(List<Integer> ids) {
+        LinkedHashSet<Integer> distinctIds = new LinkedHashSet<>(ids);
+        distinctIds.remove(null);
+        Map<Integer, User> found = new HashMap<>(distinctIds.size() * 2);
+        List<Integer> remoteIds = new ArrayList<>();
+        for (Integer id : distinctIds) {
+            User local = localUsers.getIfPresent(id);
+            if (local != null) {
+                found.put(id, local);
+            } else {
+                remoteIds.add(id);
+            }
+        }
+        if (!remoteIds.isEmpty()) {
+            List<Long> bloomIds = new ArrayList<>(remoteIds.size());
+            for (Integer id : remoteIds) {
+                bloomIds.add((long) id);
+            }
+            List<Boolean> exists = userInfoBloomFilter.mightContainAll(bloomIds);
+            List<Integer> candidates = new ArrayList<>(remoteIds.size());
+            for (int i = 0; i < remoteIds.size(); i++) {
+                if (!Boolean.FALSE.equals(exists.get(i))) {
+                    candidates.add(remoteIds.get(i));
+                }
+            }
+            found.putAll(getCachedAll(candidates));
+            List<Integer> missed = new ArrayList<>();
+            for (Integer id : candidates) {
+                if (!found.containsKey(id)) {
+                    missed.add(id);
+                } else if (found.get(id) == NOT_FOUND) {
+                    falsePositive("negative-cache");
+                }
+            }
+            Map<Integer, User> loaded = loadAllAndCache(missed);
+            for (int i = loaded.size(); i < missed.size(); i++) {
+                falsePositive("db");
+            }
+            found.putAll(loaded);
+        }
+        List<User> users = new ArrayList<>(found.size());
+        for (Integer id : distinctIds) {
+            User user = found.get(id);
+            if (user != null && user != NOT_FOUND) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    /**
+     * 一次pipeline HMGET从Redis缓存中批量获取用户，命中的回填一级缓存；
+     * 桶中没有的id再通过一次pipeline检查不存在标记，有标记的id对应NOT_FOUND
+     */
+    private Map<Integer, User> getCachedAll(List<Integer> ids) {
+        Map<Integer, User> cached = new HashMap<>(ids.size() * 2);
+        if (ids.isEmpty()) {
+            return cached;
+        }
+        Map<String, List<String>> itemsByBucket = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            itemsByBucket.computeIfAbsent(bucketKey(id), key -> new ArrayList<>()).add(id + "");
+        }
+        redisUtils.hmultiGetRaw(itemsByBucket, RedisDBSelector.DB_0).forEach((bucket, values) -> {
+            List<String> items = itemsByBucket.get(bucket);
+            for (int i = 0; i < items.size(); i++) {
+                User user = userValueCodec.decode(values.get(i));
+                if (user != null) {
+                    Integer id = Integer.valueOf(items.get(i));
+                    localUsers.put(id, user);
+                    cached.put(id, user);
+                }
+            }
+        });
+        List<Integer> missed = new ArrayList<>();
+        List<String> nullKeys = new ArrayList<>();
+        for (Integer id : ids) {
+            if (!cached.containsKey(id)) {
+                missed.add(id);
+                nullKeys.add(nullKey(id));
+            }
+        }
+        List<Boolean> negatives = redisUtils.hasKeys(nullKeys, RedisDBSelector.DB_0);
+        for (int i = 0; i < missed.size(); i++) {
+            if (negatives.get(i)) {
+                cached.put(missed.get(i), NOT_FOUND);
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * 分批IN查询数据库，查到的用户和不存在标记通过一个pipeline写回Redis，查到的用户回填一级缓存
+     */
+    private Map<Integer, User> loadAllAndCache(List<Integer> ids) {
+        Map<Integer, User> loaded = new HashMap<>(ids.size() * 2);
+        if (ids.isEmpty()) {
+            return loaded;
+        }
+        for (List<Integer> chunk : Lists.partition(ids, inListChunkSize)) {
+            for (User user : userMapper.selectByPrimaryKeys(chunk)) {
+                if (Objects.isNull(user) || Objects.isNull(user.getUserId())) {
+                    continue;
+                }
+                loaded.put(user.getUserId(), user);
+                localUsers.put(user.getUserId(), user);
+            }
+        }
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : ids) {
+            if (!loaded.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        writeBack(loaded.values(), missing);
+        return loaded;
+    }
+
+    /**
+     * 从Redis缓存中获取用户，命中时回填一级缓存，桶中没有时再检查不存在标记
+     *
+     * @return 用户；有不存在标记时为NOT_FOUND；未命中为null
+     */
+    private User getCached(int id) {
+        User user = userValueCodec.decode(redisUtils.hgetRaw(bucketKey(id), id + "", RedisDBSelector.DB_0));
+        if (user != null) {
+            localUsers.put(id, user);
+            return user;
+        }
+        return Boolean.TRUE.equals(redisUtils.hasKey(nullKey(id), RedisDBSelector.DB_0)) ? NOT_FOUND : null;
+    }
+
+    /**
+     * 回源数据库并写回缓存，开启分布式租约时先抢租约
+     */
+    private User loadAndCache(int id) {
+        if (distributedLeaseEnabled) {
+            return loadWithLease(id);
+        }
+        return loadFromDb(id);
+    }
+
+    /**
+     * 异步回源：不开启分布式租约时直接在dbExecutor中查询数据库，开启时先在dbExecutor中抢租约，
+     * 没有抢到时由leaseScheduler定时轮询缓存，等待期间不占用dbExecutor的线程
+     */
+    private CompletionStage<User> loadAndCacheAsync(int id) {
+        if (!distributedLeaseEnabled) {
+            return CompletableFuture.supplyAsync(() -> loadFromDb(id), dbExecutor);
+        }
+        String leaseKey = USER_INFO_LEASE_PREFIX + id;
+        String token = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + leaseSeconds * 1000L;
+        return CompletableFuture.supplyAsync(() -> redisUtils.tryLease(leaseKey, token, leaseSeconds, RedisDBSelector.DB_0), dbExecutor)
+                .thenCompose(acquired -> {
+                    if (acquired) {
+                        return CompletableFuture.supplyAsync(() -> loadAndRelease(id, leaseKey, token), dbExecutor);
+                    }
+                    CompletableFuture<User> result = new CompletableFuture<>();
+                    pollCache(id, deadline, result);
+                    return result;
+                });
+    }
+
+    /**
+     * 每隔LEASE_POLL_MILLIS在leaseScheduler上检查一次缓存，超过deadline仍未等到时回到dbExecutor中自己回源
+     */
+    private void pollCache(int id, long deadline, CompletableFuture<User> result) {
+        try {
+            leaseScheduler.schedule(() -> {
+                try {
+                    User user = getCached(id);
+                    if (user != null) {
+                        result.complete(user == NOT_FOUND ? null : user);
+                    } else if (System.currentTimeMillis() < deadline) {
+                        pollCache(id, deadline, result);
+                    } else {
+                        CompletableFuture.supplyAsync(() -> loadFromDb(id), dbExecutor).whenComplete((loaded, e) -> {
+                            if (e != null) {
+                                result.completeExceptionally(e);
+                            } else {
+                                result.complete(loaded);
+                            }
+                        });
+                    }
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            }, LEASE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            //应用关闭中
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 抢到租约的节点查询数据库并写回缓存，其余节点在租约有效期内轮询缓存，
+     * 超时仍未等到(持有者宕机或查询过慢)时自己回源。同步调用在调用线程上等待
+     */
+    private User loadWithLease(int id) {
+        String leaseKey = USER_INFO_LEASE_PREFIX + id;
+        String token = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + leaseSeconds * 1000L;
+        if (redisUtils.tryLease(leaseKey, token, leaseSeconds, RedisDBSelector.DB_0)) {
+            return loadAndRelease(id, leaseKey, token);
+        }
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(LEASE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            User user = getCached(id);
+            if (user == NOT_FOUND) {
+                return null;
+            }
+            if (user != null) {
+                return user;
+            }
+        }
+        return loadFromDb(id);
+    }
+
+    /**
+     * 持有租约时回源，结束后按token释放租约，租约已经过期并被别的节点拿到时不会误删
+     */
+    private User loadAndRelease(int id, String leaseKey, String token) {
+        try {
+            return loadFromDb(id);
+        } finally {
+            redisUtils.releaseLease(leaseKey, token, RedisDBSelector.DB_0);
+        }
+    }
+
+    /**
+     * 从数据库中查询用户并写入缓存，不存在时写入短时间有效的不存在标记
+     */
+    private User loadFromDb(int id) {
+        User user = userMapper.selectByPrimaryKey(id);
+        if (user != null) {
+            writeBack(Collections.singletonList(user), Collections.emptyList());
+            localUsers.put(id, user);
+        } else {
+            writeBack(Collections.emptyList(), Collections.singletonList(id));
+        }
+        return user;
+    }
+
+    /**
+     * 按桶分组后通过一个pipeline写回Redis，桶只在新建时设置随机的过期时间，写入不会推迟整个桶的过期。
+     * 不存在的id通过另一个pipeline写入独立的不存在标记，过期时间为negativeTtlSeconds
+     */
+    private void writeBack(Collection<User> users, Collection<Integer> missingIds) {
+        Map<String, Map<String, byte[]>> hashes = new HashMap<>();
+        for (User user : users) {
+            hashes.computeIfAbsent(bucketKey(user.getUserId()), key -> new HashMap<>())
+                    .put(user.getUserId() + "", userValueCodec.encode(user));
+        }
+        long minTtl = (long) (ttlSeconds * (1 - ttlJitterRatio));
+        long maxTtl = (long) (ttlSeconds * (1 + ttlJitterRatio));
+        redisUtils.hmsetRawWithTtl(hashes, minTtl, maxTtl, RedisDBSelector.DB_0);
+        List<String> nullKeys = new ArrayList<>(missingIds.size());
+        for (Integer id : missingIds) {
+            nullKeys.add(nullKey(id));
+        }
+        redisUtils.setRawAll(nullKeys, NULL_MARKER, negativeTtlSeconds, RedisDBSelector.DB_0);
+    }
+
+    /**
+     * 查询耗时，按调用方法和数据来源区分：local(一级缓存)、redis、db、absent(布隆过滤器判定不存在)、
+     * not-found(布隆过滤器判定可能存在但用户不存在)
+     */
+    private Timer queryTimer(String method, String result) {
+        return queryTimers.computeIfAbsent(method + ':' + result, id -> Timer.builder("user.query")
+                .description("根据id查询用户的耗时")
+                .tag("method", method)
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    /**
+     * 观测到的布隆过滤器误判：布隆过滤器判定可能存在，但缓存和数据库中都没有。
+     * 线上实际的误判率 = false.positives / (false.positives + bloom.filter.lookups{result=negative})
+     *
+     * @param source 确认不存在的位置，db或negative-cache(不存在标记)
+     */
+    private void falsePositive(String source) {
+        falsePositiveCounters.computeIfAbsent(source, id -> Counter.builder("bloom.filter.false.positives")
+                .description("布隆过滤器判定可能存在但实际不存在的查询数")
+                .tag("filter", userInfoBloomFilter.getName())
+                .tag("source", source)
+                .register(meterRegistry))
+                .increment();
+    }
+
+    /**
+     * 用户不存在标记的key
+     */
+    private String nullKey(int id) {
+        return USER_INFO_NULL_PREFIX + id;
+    }
+
+    /**
+     * 用户所在的缓存桶
+     */
+    private String bucketKey(int id) {
+        return USER_INFO_KEY_PREFIX + Math.floorMod(Hashing.murmur3_32().hashInt(id).asInt(), buckets);
+    }
+
+    /**
+     * 进程内一级缓存的命中率等统计信息
+     */
+    public CacheStats getLocalCacheStats() {
+        return localUsers.stats();
+    }
+
 }
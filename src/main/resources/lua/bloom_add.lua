@@ -0,0 +1,11 @@
+-- 一次调用设置布隆过滤器的全部k个bit位
+-- KEYS[1]: 布隆过滤器的key
+-- ARGV:    由BloomFilterHelper计算出的k个bit偏移量
+-- 返回本次新置为1的bit个数
+local changed = 0
+for i = 1, #ARGV do
+    if redis.call('SETBIT', KEYS[1], ARGV[i], 1) == 0 then
+        changed = changed + 1
+    end
+end
+return changed
@@ -0,0 +1,10 @@
+-- 一次调用检查布隆过滤器的全部k个bit位
+-- KEYS[1]: 布隆过滤器的key
+-- ARGV:    由BloomFilterHelper计算出的k个bit偏移量
+-- 全部为1返回1(可能存在)，否者返回0(一定不存在)
+for i = 1, #ARGV do
+    if redis.call('GETBIT', KEYS[1], ARGV[i]) == 0 then
+        return 0
+    end
+end
+return 1
@@ -0,0 +1,32 @@
+-- 从计数布隆过滤器中删除元素
+-- KEYS[1]: 计数布隆过滤器的key
+-- ARGV:    由BloomFilterHelper计算出的k个计数器下标，每个计数器为4bit(u4 #下标)
+-- 任意一个计数器为0说明元素不存在，不做修改返回0；否者把未饱和(小于15)的计数器减1并返回1，
+-- 饱和的计数器无法得知真实计数，保持不变
+local getArgs = {}
+for i = 1, #ARGV do
+    table.insert(getArgs, 'GET')
+    table.insert(getArgs, 'u4')
+    table.insert(getArgs, '#' .. ARGV[i])
+end
+local counters = redis.call('BITFIELD', KEYS[1], unpack(getArgs))
+for i = 1, #counters do
+    if counters[i] == 0 then
+        return 0
+    end
+end
+local decrArgs = {}
+for i = 1, #ARGV do
+    if counters[i] < 15 then
+        table.insert(decrArgs, 'OVERFLOW')
+        table.insert(decrArgs, 'SAT')
+        table.insert(decrArgs, 'INCRBY')
+        table.insert(decrArgs, 'u4')
+        table.insert(decrArgs, '#' .. ARGV[i])
+        table.insert(decrArgs, -1)
+    end
+end
+if #decrArgs > 0 then
+    redis.call('BITFIELD', KEYS[1], unpack(decrArgs))
+end
+return 1
@@ -0,0 +1,19 @@
+-- 从布谷鸟过滤器中删除指纹
+-- KEYS[1]: 布谷鸟过滤器的key
+-- ARGV[1]: 指纹   ARGV[2]: 第一个候选桶   ARGV[3]: 第二个候选桶   ARGV[4]: 指纹位数
+-- 找到并删除返回1，否者返回0
+local key = KEYS[1]
+local fp = tonumber(ARGV[1])
+local t = 'u' .. ARGV[4]
+local B = 4
+local buckets = {tonumber(ARGV[2]), tonumber(ARGV[3])}
+for _, b in ipairs(buckets) do
+    for j = 0, B - 1 do
+        local s = '#' .. (b * B + j)
+        if redis.call('BITFIELD', key, 'GET', t, s)[1] == fp then
+            redis.call('BITFIELD', key, 'SET', t, s, 0)
+            return 1
+        end
+    end
+end
+return 0
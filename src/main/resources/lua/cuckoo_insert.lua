@@ -0,0 +1,76 @@
+-- 向布谷鸟过滤器中插入指纹
+-- KEYS[1]: 布谷鸟过滤器的key
+-- ARGV[1]: 指纹   ARGV[2]: 第一个候选桶   ARGV[3]: 桶数   ARGV[4]: 指纹位数   ARGV[5]: 最大踢出次数
+-- 插入成功返回1；两个候选桶中已经有相同指纹时不重复插入，同样返回1；
+-- 过滤器已满返回0，此时撤销本次所有踢出操作，过滤器内容保持不变
+local key = KEYS[1]
+local fp = tonumber(ARGV[1])
+local i1 = tonumber(ARGV[2])
+local m = tonumber(ARGV[3])
+local t = 'u' .. ARGV[4]
+local maxKicks = tonumber(ARGV[5])
+local B = 4
+
+-- 与CuckooFilterHelper.altIndex一致
+local function altIndex(i, f)
+    return ((f * 1540483477) % m - i) % m
+end
+
+local function slot(b, j)
+    return '#' .. (b * B + j)
+end
+
+local function bucket(b)
+    return redis.call('BITFIELD', key, 'GET', t, slot(b, 0), 'GET', t, slot(b, 1), 'GET', t, slot(b, 2), 'GET', t, slot(b, 3))
+end
+
+local function contains(r, f)
+    for j = 1, B do
+        if r[j] == f then
+            return true
+        end
+    end
+    return false
+end
+
+local function tryInsert(b, f)
+    local r = bucket(b)
+    for j = 1, B do
+        if r[j] == 0 then
+            redis.call('BITFIELD', key, 'SET', t, slot(b, j - 1), f)
+            return true
+        end
+    end
+    return false
+end
+
+local i2 = altIndex(i1, fp)
+-- 先检查两个候选桶，已经存在的指纹不再占用新的槽位，否则重复添加同一个元素会很快把桶填满
+if contains(bucket(i1), fp) or contains(bucket(i2), fp) then
+    return 1
+end
+if tryInsert(i1, fp) or tryInsert(i2, fp) then
+    return 1
+end
+
+-- 两个候选桶都满了，随机踢出一个指纹到它的另一个候选桶，记录路径以便失败时撤销
+local path = {}
+local b = i1
+if math.random(2) == 2 then
+    b = i2
+end
+local f = fp
+for n = 1, maxKicks do
+    local j = math.random(B) - 1
+    local victim = redis.call('BITFIELD', key, 'SET', t, slot(b, j), f)[1]
+    table.insert(path, {b, j, victim})
+    f = victim
+    b = altIndex(b, f)
+    if tryInsert(b, f) then
+        return 1
+    end
+end
+for n = #path, 1, -1 do
+    redis.call('BITFIELD', key, 'SET', t, slot(path[n][1], path[n][2]), path[n][3])
+end
+return 0
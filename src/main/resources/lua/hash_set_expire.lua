@@ -0,0 +1,12 @@
+-- 向hash中写入多个项，只在key还没有过期时间时设置过期时间，之后的写入不会推迟整个key的过期
+-- KEYS[1]: hash的key
+-- ARGV[1]: 过期时间(秒)
+-- ARGV[2..]: 项和值交替排列
+-- 返回写入的项数
+for i = 2, #ARGV, 2 do
+    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+end
+if redis.call('TTL', KEYS[1]) == -1 then
+    redis.call('EXPIRE', KEYS[1], ARGV[1])
+end
+return (#ARGV - 1) / 2
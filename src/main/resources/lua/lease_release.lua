@@ -0,0 +1,8 @@
+-- 释放租约，只有租约仍然属于调用方时才删除，过期后被别人拿到的租约不受影响
+-- KEYS[1]: 租约key
+-- ARGV[1]: 获取租约时写入的token
+-- 删除成功返回1，否则返回0
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
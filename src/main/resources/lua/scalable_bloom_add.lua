@@ -0,0 +1,23 @@
+-- 向可扩容布隆过滤器的当前层添加元素
+-- KEYS[1]: 层数key   KEYS[2]: 当前层的bitmap   KEYS[3]: 当前层的元素计数
+-- ARGV[1]: 调用方认为的当前层序号(从0开始)   ARGV[2]: 当前层容量   ARGV[3..]: bit偏移量
+-- 调用方的层数已过期时不做修改，返回负的最新层数；否者设置bit位，有bit位从0变1时计数加1，
+-- 计数达到容量时层数加1，返回最新层数
+local layers = tonumber(redis.call('GET', KEYS[1]) or '1')
+if layers ~= tonumber(ARGV[1]) + 1 then
+    return -layers
+end
+local changed = false
+for i = 3, #ARGV do
+    if redis.call('SETBIT', KEYS[2], ARGV[i], 1) == 0 then
+        changed = true
+    end
+end
+if changed then
+    local count = redis.call('INCR', KEYS[3])
+    if count >= tonumber(ARGV[2]) then
+        layers = layers + 1
+        redis.call('SET', KEYS[1], layers)
+    end
+end
+return layers
@@ -1,26 +1,22 @@
 package top.easyblog;
 
-import com.google.common.base.Charsets;
-import com.google.common.hash.Funnel;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
-import top.easyblog.common.BloomFilterHelper;
-import top.easyblog.common.enums.RedisDBSelector;
+import top.easyblog.benchmark.Benchmarks;
+import top.easyblog.benchmark.LoadGenerator;
 import top.easyblog.common.util.RedisUtils;
 import top.easyblog.entity.User;
 import top.easyblog.mapper.UserMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
+import top.easyblog.service.UserBloomFilterWarmUp;
 import top.easyblog.service.UserService;
 
 import java.util.*;
-import java.util.concurrent.Executor;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 /**
  * @author ：huangxin
@@ -41,6 +37,10 @@ public class AppTest {
 
     @Autowired
     private UserService userService;
+
+    @Autowired
+    private UserBloomFilterWarmUp userBloomFilterWarmUp;
+
     @Test
     public void insert(){
         int count=0;
@@ -60,25 +60,22 @@ public class AppTest {
 
     @Before
     public void before(){
-        //测试之前先将数据加载到RedisBloom中
-        BloomFilterHelper<String> filter = new BloomFilterHelper<>((Funnel<String>) (from, into) ->
-                into.putString(from, Charsets.UTF_8).putString(from, Charsets.UTF_8), 1500000, 0.001);
-        List<User> users = userMapper.selectAll();
-        Objects.requireNonNull(users).forEach(user->{
-            redisUtils.add2BloomFilter(filter,"USER_INFO",user.getUserId()+"", RedisDBSelector.DB_1);
-        });
+        //测试之前先将数据加载到RedisBloom中，按id范围并行流式读取，不把整张表读入内存
+        userBloomFilterWarmUp.warmUp();
 
     }
 
+    /**
+     * 压测开发环境的UserService，等待压测结束后输出吞吐和延迟分位数，参数见{@link LoadGenerator#fromSystemProperties}；
+     * 在本地Redis + H2上压测见{@link top.easyblog.benchmark.UserLoadTest}，默认跳过，见{@link Benchmarks#assumeEnabled()}
+     */
     @Test
-    public void test(){
-        ThreadPoolExecutor executor=new ThreadPoolExecutor(1000,2000,60, TimeUnit.SECONDS,new LinkedBlockingQueue<>(),new ThreadPoolExecutor.CallerRunsPolicy());
-        for(int i=0;i<2000;i++) {
-            int finalI = i;
-            executor.submit(() -> {
-                userService.getUserById(finalI);
-            });
-        }
+    public void test() throws InterruptedException {
+        Benchmarks.assumeEnabled();
+        LoadGenerator generator = LoadGenerator.fromSystemProperties(Integer.getInteger("load.users", 1_000_000));
+        LoadGenerator.Result result = generator.run("UserService.getUserById", userService::getUserById);
+        result.print();
+        Assert.assertEquals(0, result.getErrors());
     }
 
 }
@@ -0,0 +1,101 @@
+package top.easyblog.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import top.easyblog.RedisBloomApplication;
+import top.easyblog.common.bloom.BloomFilter;
+import top.easyblog.entity.User;
+import top.easyblog.mapper.UserMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试和压测使用的本地环境：随机端口的redis-server + bench profile(H2内存数据库代替MySQL)的Spring上下文。
+ * 启动后向H2写入userCount个用户(user_id从1开始连续分配)，并把这些id写入用户布隆过滤器。
+ * H2不支持scanUserIds使用的MySQL流式fetchSize，所以不走{@code UserBloomFilterWarmUp}
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class BenchmarkEnvironment implements Closeable {
+
+    private static final int INSERT_BATCH = 1000;
+
+    private final LocalRedisServer redis;
+
+    private final ConfigurableApplicationContext context;
+
+    private final int userCount;
+
+    /**
+     * @param userCount  写入H2的用户数
+     * @param properties 额外的配置，格式为key=value，覆盖application-bench.yml
+     */
+    public BenchmarkEnvironment(int userCount, String... properties) throws IOException {
+        this.userCount = userCount;
+        this.redis = new LocalRedisServer();
+        try {
+            this.context = new SpringApplicationBuilder(RedisBloomApplication.class)
+                    .profiles("bench")
+                    .properties("spring.redis.port=" + redis.getPort())
+                    .properties(properties)
+                    .run();
+            seed();
+        } catch (RuntimeException e) {
+            redis.close();
+            throw e;
+        }
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public <T> T getBean(String name, Class<T> type) {
+        return context.getBean(name, type);
+    }
+
+    public String getProperty(String key) {
+        return context.getEnvironment().getProperty(key);
+    }
+
+    public int getUserCount() {
+        return userCount;
+    }
+
+    @Override
+    public void close() {
+        try {
+            context.close();
+        } finally {
+            redis.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void seed() {
+        UserMapper userMapper = context.getBean(UserMapper.class);
+        BloomFilter<Long> userInfoBloomFilter = context.getBean("userInfoBloomFilter", BloomFilter.class);
+        List<User> users = new ArrayList<>(INSERT_BATCH);
+        List<Long> ids = new ArrayList<>(INSERT_BATCH);
+        for (int i = 1; i <= userCount; i++) {
+            User user = new User();
+            user.setName("user-" + i);
+            user.setAge(18 + i % 50);
+            user.setGender(i % 2 == 0 ? "M" : "F");
+            users.add(user);
+            ids.add((long) i);
+            if (users.size() == INSERT_BATCH || i == userCount) {
+                userMapper.insertBatch(users);
+                userInfoBloomFilter.putAll(ids);
+                users.clear();
+                ids.clear();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,27 @@
+package top.easyblog.benchmark;
+
+import org.junit.Assume;
+
+/**
+ * 基准测试和压测耗时长并且依赖Redis、MySQL等外部环境，普通的mvn test不运行，
+ * 需要时通过-Dbenchmark=true打开，例如mvn test -Dbenchmark=true -Dtest=CuckooFilterBenchmark
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public final class Benchmarks {
+
+    public static final String ENABLED_PROPERTY = "benchmark";
+
+    private Benchmarks() {
+    }
+
+    /**
+     * 没有打开基准测试时跳过当前测试，在@BeforeClass中调用可以在加载Spring上下文之前跳过整个测试类
+     */
+    public static void assumeEnabled() {
+        Assume.assumeTrue("基准测试默认跳过，使用-D" + ENABLED_PROPERTY + "=true运行", Boolean.getBoolean(ENABLED_PROPERTY));
+    }
+
+}
@@ -0,0 +1,70 @@
+package top.easyblog.benchmark;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Funnel;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import top.easyblog.common.BloomFilterHelper;
+import top.easyblog.common.LongBloomFilterHelper;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 比较字符串key和long key计算偏移量时的耗时与分配速率，不依赖Redis，
+ * 默认跳过，见{@link Benchmarks#assumeEnabled()}
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class BloomFilterHelperBenchmark {
+
+    private static final int ITERATIONS = 5_000_000;
+
+    private final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * 防止JIT消除计算
+     */
+    private long blackhole;
+
+    @BeforeClass
+    public static void requireBenchmark() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @Test
+    public void compare() {
+        BloomFilterHelper<String> stringHelper = new BloomFilterHelper<>((Funnel<String>) (from, into) ->
+                into.putString(from, Charsets.UTF_8).putString(from, Charsets.UTF_8), 1500000, 0.001);
+        LongBloomFilterHelper longHelper = new LongBloomFilterHelper(1500000, 0.001);
+
+        run("String key(id + \"\")", () -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                blackhole += stringHelper.murmurHashOffset(i + "")[0];
+            }
+        });
+        run("long key, threadLocalOffset", () -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                blackhole += longHelper.threadLocalOffset(i)[0];
+            }
+        });
+        System.out.println("blackhole: " + blackhole);
+    }
+
+    private void run(String name, Runnable task) {
+        //预热，让JIT完成编译
+        task.run();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        task.run();
+        long elapsed = System.nanoTime() - start;
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%-32s %8.1f ns/op %8.1f B/op %10.1f MB/s%n", name,
+                (double) elapsed / ITERATIONS, (double) allocated / ITERATIONS,
+                allocated / 1024.0 / 1024.0 / (elapsed / 1e9));
+    }
+
+}
@@ -0,0 +1,95 @@
+package top.easyblog.benchmark;
+
+import com.google.common.hash.Funnels;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import top.easyblog.common.BloomFilterHelper;
+import top.easyblog.common.CuckooFilterHelper;
+import top.easyblog.common.bloom.BloomFilter;
+import top.easyblog.common.bloom.CuckooRedisFilter;
+import top.easyblog.common.bloom.RedisBloomFilter;
+import top.easyblog.common.enums.RedisDBSelector;
+import top.easyblog.common.util.RedisUtils;
+
+/**
+ * 在相同误判率下比较bitmap布隆过滤器和布谷鸟过滤器的空间占用、读写耗时和实际误判率，需要连接application.yml中的Redis，
+ * 默认跳过，见{@link Benchmarks#assumeEnabled()}
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class CuckooFilterBenchmark {
+
+    private static final String BLOOM_KEY = "BENCH_BLOOM";
+
+    private static final String CUCKOO_KEY = "BENCH_CUCKOO";
+
+    private static final RedisDBSelector DB = RedisDBSelector.DB_15;
+
+    private static final int INSERTIONS = 100_000;
+
+    private static final int ABSENT_LOOKUPS = 100_000;
+
+    private static final double FPP = 0.001;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @BeforeClass
+    public static void requireBenchmark() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @Test
+    public void compare() {
+        RedisBloomFilter<Long> bloom = new RedisBloomFilter<>("bench-bloom", BLOOM_KEY, DB,
+                new BloomFilterHelper<>(Funnels.longFunnel(), INSERTIONS, FPP), redisUtils);
+        CuckooRedisFilter<Long> cuckoo = new CuckooRedisFilter<>("bench-cuckoo", CUCKOO_KEY, DB,
+                new CuckooFilterHelper<>(Funnels.longFunnel(), INSERTIONS, FPP), redisUtils);
+
+        System.out.printf("%-8s %10s %14s %14s %14s %10s%n", "filter", "bytes", "put ns/op", "hit ns/op", "miss ns/op", "fpp");
+        run("bloom", bloom, BLOOM_KEY);
+        run("cuckoo", cuckoo, CUCKOO_KEY);
+    }
+
+    @After
+    public void clean() {
+        redisUtils.delete(DB, BLOOM_KEY, CUCKOO_KEY);
+    }
+
+    private void run(String name, BloomFilter<Long> filter, String key) {
+        long start = System.nanoTime();
+        for (long i = 0; i < INSERTIONS; i++) {
+            filter.put(i);
+        }
+        long putNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (long i = 0; i < INSERTIONS; i++) {
+            filter.mightContain(i);
+        }
+        long hitNanos = System.nanoTime() - start;
+
+        int falsePositives = 0;
+        start = System.nanoTime();
+        for (long i = INSERTIONS; i < INSERTIONS + ABSENT_LOOKUPS; i++) {
+            if (filter.mightContain(i)) {
+                falsePositives++;
+            }
+        }
+        long missNanos = System.nanoTime() - start;
+
+        System.out.printf("%-8s %10d %14.0f %14.0f %14.0f %10.5f%n", name, redisUtils.strlen(key, DB),
+                (double) putNanos / INSERTIONS, (double) hitNanos / INSERTIONS,
+                (double) missNanos / ABSENT_LOOKUPS, (double) falsePositives / ABSENT_LOOKUPS);
+    }
+
+}
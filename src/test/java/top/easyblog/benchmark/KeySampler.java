@@ -0,0 +1,73 @@
+package top.easyblog.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 压测请求的id分布。存在的id取值为[1, n]，absentRatio比例的请求使用不存在的负数id，
+ * 用来模拟缓存穿透的流量，这部分请求应当被布隆过滤器拦截
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public abstract class KeySampler {
+
+    private final double absentRatio;
+
+    protected KeySampler(double absentRatio) {
+        if (absentRatio < 0 || absentRatio > 1) {
+            throw new IllegalArgumentException("illegal parameter: absentRatio" + absentRatio);
+        }
+        this.absentRatio = absentRatio;
+    }
+
+    /**
+     * [1, n]内均匀分布
+     */
+    public static KeySampler uniform(int n, double absentRatio) {
+        return new KeySampler(absentRatio) {
+            @Override
+            protected int nextPresent(ThreadLocalRandom random) {
+                return random.nextInt(n) + 1;
+            }
+        };
+    }
+
+    /**
+     * [1, n]内的Zipf分布，id为i的概率与1/i^exponent成正比，id越小越热。
+     * 预先计算累积分布，采样时二分查找，n为百万时占用8MB
+     */
+    public static KeySampler zipf(int n, double exponent, double absentRatio) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+        return new KeySampler(absentRatio) {
+            @Override
+            protected int nextPresent(ThreadLocalRandom random) {
+                int index = Arrays.binarySearch(cdf, random.nextDouble());
+                return (index >= 0 ? index : Math.min(-index - 1, n - 1)) + 1;
+            }
+        };
+    }
+
+    /**
+     * 下一个请求的id
+     */
+    public int next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (absentRatio > 0 && random.nextDouble() < absentRatio) {
+            return -(random.nextInt(Integer.MAX_VALUE - 1) + 1);
+        }
+        return nextPresent(random);
+    }
+
+    protected abstract int nextPresent(ThreadLocalRandom random);
+
+}
@@ -0,0 +1,220 @@
+package top.easyblog.benchmark;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+
+/**
+ * 压测请求发生器，延迟记录在HdrHistogram中：
+ * <ul>
+ *     <li>闭环：concurrency个线程各自循环发送请求，上一个请求返回后立即发送下一个，测量的是系统能承受的最大吞吐</li>
+ *     <li>开环：按固定速率rate安排请求的发送时间，交给concurrency个线程执行，延迟从计划发送时间开始计算，
+ *     系统变慢时排队时间也计入延迟，不会因为请求发不出去而低估尾延迟(coordinated omission)</li>
+ * </ul>
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class LoadGenerator {
+
+    public enum Mode {
+        /**
+         * 闭环
+         */
+        CLOSED,
+        /**
+         * 开环
+         */
+        OPEN
+    }
+
+    private final Mode mode;
+
+    private final int concurrency;
+
+    private final double rate;
+
+    private final Duration duration;
+
+    private final KeySampler keys;
+
+    /**
+     * @param mode        闭环或开环
+     * @param concurrency 发送请求的线程数
+     * @param rate        开环时每秒发送的请求数，闭环时忽略
+     * @param duration    压测时长
+     * @param keys        请求id的分布
+     */
+    public LoadGenerator(Mode mode, int concurrency, double rate, Duration duration, KeySampler keys) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("illegal parameter: concurrency" + concurrency);
+        }
+        if (mode == Mode.OPEN && rate <= 0) {
+            throw new IllegalArgumentException("illegal parameter: rate" + rate);
+        }
+        this.mode = mode;
+        this.concurrency = concurrency;
+        this.rate = rate;
+        this.duration = duration;
+        this.keys = keys;
+    }
+
+    /**
+     * 按系统属性创建压测请求发生器：
+     * <pre>
+     * load.mode           closed|open，默认closed
+     * load.concurrency    线程数，默认64
+     * load.rate           开环每秒请求数，默认10000
+     * load.duration       压测秒数，默认30
+     * load.distribution   uniform|zipf，默认zipf
+     * load.zipf-exponent  Zipf分布的指数，默认0.99
+     * load.absent-ratio   不存在的id所占比例，默认0.1
+     * </pre>
+     *
+     * @param userCount 存在的用户数，id取值为[1, userCount]
+     */
+    public static LoadGenerator fromSystemProperties(int userCount) {
+        double absentRatio = Double.parseDouble(System.getProperty("load.absent-ratio", "0.1"));
+        KeySampler keys = "uniform".equals(System.getProperty("load.distribution", "zipf"))
+                ? KeySampler.uniform(userCount, absentRatio)
+                : KeySampler.zipf(userCount, Double.parseDouble(System.getProperty("load.zipf-exponent", "0.99")), absentRatio);
+        return new LoadGenerator(Mode.valueOf(System.getProperty("load.mode", "closed").toUpperCase()),
+                Integer.getInteger("load.concurrency", 64),
+                Double.parseDouble(System.getProperty("load.rate", "10000")),
+                Duration.ofSeconds(Long.getLong("load.duration", 30L)),
+                keys);
+    }
+
+    /**
+     * 执行压测
+     *
+     * @param name    结果中显示的名称
+     * @param request 以id发送一次请求，抛出异常计为失败
+     * @return 压测结果
+     */
+    public Result run(String name, IntConsumer request) throws InterruptedException {
+        Histogram histogram = new ConcurrentHistogram(3);
+        LongAdder errors = new LongAdder();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency,
+                new ThreadFactoryBuilder().setNameFormat("load-" + name + "-%d").setDaemon(true).build());
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        try {
+            if (mode == Mode.CLOSED) {
+                runClosed(request, histogram, errors, workers, deadline);
+            } else {
+                runOpen(request, histogram, errors, workers, start, deadline);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        return new Result(name, mode, histogram, errors.sum(), System.nanoTime() - start);
+    }
+
+    private void runClosed(IntConsumer request, Histogram histogram, LongAdder errors,
+                           ExecutorService workers, long deadline) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        execute(request, histogram, errors, System.nanoTime());
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    private void runOpen(IntConsumer request, Histogram histogram, LongAdder errors,
+                         ExecutorService workers, long start, long deadline) throws InterruptedException {
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        for (long n = 0; ; n++) {
+            long intended = start + (long) (n * intervalNanos);
+            if (intended >= deadline) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            workers.execute(() -> execute(request, histogram, errors, intended));
+        }
+        workers.shutdown();
+        //等待已经安排的请求执行完，系统严重过载时最多再等一个压测时长
+        if (!workers.awaitTermination(duration.toNanos(), TimeUnit.NANOSECONDS)) {
+            System.out.println("开环压测结束时仍有请求未完成，系统已经过载");
+        }
+    }
+
+    private void execute(IntConsumer request, Histogram histogram, LongAdder errors, long startNanos) {
+        try {
+            request.accept(keys.next());
+        } catch (Exception e) {
+            errors.increment();
+        }
+        histogram.recordValue(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 压测结果
+     */
+    public static class Result {
+
+        private final String name;
+
+        private final Mode mode;
+
+        private final Histogram histogram;
+
+        private final long errors;
+
+        private final long elapsedNanos;
+
+        private Result(String name, Mode mode, Histogram histogram, long errors, long elapsedNanos) {
+            this.name = name;
+            this.mode = mode;
+            this.histogram = histogram;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public Histogram getHistogram() {
+            return histogram;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * 每秒完成的请求数
+         */
+        public double getThroughput() {
+            return histogram.getTotalCount() / (elapsedNanos / 1e9);
+        }
+
+        public void print() {
+            System.out.printf("%-24s %-6s %10d req %10.1f req/s %6d err  p50 %8.1f us  p99 %8.1f us  p999 %8.1f us  max %8.1f us%n",
+                    name, mode, histogram.getTotalCount(), getThroughput(), errors,
+                    micros(50), micros(99), micros(99.9), histogram.getMaxValue() / 1e3);
+        }
+
+        private double micros(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1e3;
+        }
+    }
+
+}
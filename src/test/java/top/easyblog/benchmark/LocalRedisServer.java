@@ -0,0 +1,89 @@
+package top.easyblog.benchmark;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 在随机端口上启动一个本地redis-server进程，不持久化，关闭时销毁进程。
+ * redis-server的路径通过系统属性redis.server指定，默认从PATH中查找
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class LocalRedisServer implements Closeable {
+
+    private static final long STARTUP_TIMEOUT_MILLIS = 10_000;
+
+    private final Process process;
+
+    private final Path dir;
+
+    private final int port;
+
+    public LocalRedisServer() throws IOException {
+        this.port = freePort();
+        this.dir = Files.createTempDirectory("redis-bench");
+        this.process = new ProcessBuilder(System.getProperty("redis.server", "redis-server"),
+                "--port", String.valueOf(port),
+                "--bind", "127.0.0.1",
+                "--save", "",
+                "--appendonly", "no",
+                "--dir", dir.toString())
+                .redirectErrorStream(true)
+                .redirectOutput(new File(dir.toFile(), "redis.log"))
+                .start();
+        awaitStartup();
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    @Override
+    public void close() {
+        process.destroy();
+        try {
+            process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dir.resolve("redis.log").toFile().delete();
+        dir.toFile().delete();
+    }
+
+    private void awaitStartup() throws IOException {
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            if (!process.isAlive()) {
+                throw new IOException("redis-server启动失败，日志: " + dir.resolve("redis.log"));
+            }
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("127.0.0.1", port), 100);
+                return;
+            } catch (IOException e) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("等待redis-server启动被中断", ie);
+                }
+            }
+        }
+        close();
+        throw new IOException("redis-server在" + STARTUP_TIMEOUT_MILLIS + "ms内没有开始监听端口" + port);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+}
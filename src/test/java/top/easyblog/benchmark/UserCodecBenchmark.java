@@ -0,0 +1,90 @@
+package top.easyblog.benchmark;
+
+import com.alibaba.fastjson.JSONObject;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import top.easyblog.common.codec.UserBinaryCodec;
+import top.easyblog.entity.User;
+
+import java.util.UUID;
+
+/**
+ * 比较USER_INFO中用户的原有双层JSON格式(fastjson + Jackson默认类型)与二进制格式的大小和编解码耗时，不依赖Redis，
+ * 默认跳过，见{@link Benchmarks#assumeEnabled()}
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class UserCodecBenchmark {
+
+    private static final int ITERATIONS = 1_000_000;
+
+    /**
+     * 防止JIT消除计算
+     */
+    private long blackhole;
+
+    @BeforeClass
+    public static void requireBenchmark() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @Test
+    public void compare() {
+        User user = new User();
+        user.setUserId(1234567);
+        user.setName(UUID.randomUUID().toString());
+        user.setAge(35);
+        user.setGender("M");
+
+        Jackson2JsonRedisSerializer<Object> jackson = new Jackson2JsonRedisSerializer<>(Object.class);
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        mapper.enableDefaultTyping(ObjectMapper.DefaultTyping.NON_FINAL);
+        jackson.setObjectMapper(mapper);
+        UserBinaryCodec binary = new UserBinaryCodec();
+
+        byte[] json = jackson.serialize(JSONObject.toJSONString(user));
+        byte[] bin = binary.encode(user);
+        System.out.printf("%-24s %4d bytes%n", "fastjson + Jackson", json.length);
+        System.out.printf("%-24s %4d bytes%n", "binary", bin.length);
+
+        run("fastjson + Jackson encode", () -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                blackhole += jackson.serialize(JSONObject.toJSONString(user)).length;
+            }
+        });
+        run("binary encode", () -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                blackhole += binary.encode(user).length;
+            }
+        });
+        run("fastjson + Jackson decode", () -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                blackhole += JSONObject.parseObject((String) jackson.deserialize(json), User.class).getAge();
+            }
+        });
+        run("binary decode", () -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                blackhole += binary.decode(bin).getAge();
+            }
+        });
+        System.out.println("blackhole: " + blackhole);
+    }
+
+    private static void run(String name, Runnable task) {
+        //预热，让JIT完成编译
+        task.run();
+        long start = System.nanoTime();
+        task.run();
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-28s %8.1f ns/op %10.0f ops/s%n", name,
+                (double) elapsed / ITERATIONS, ITERATIONS / (elapsed / 1e9));
+    }
+
+}
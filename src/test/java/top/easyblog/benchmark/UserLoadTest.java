@@ -0,0 +1,79 @@
+package top.easyblog.benchmark;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import top.easyblog.service.UserService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * 在本地redis-server + H2上压测UserService和/user接口，输出吞吐和p50/p99/p999延迟，用于发版前评估单节点容量。
+ * 压测参数见{@link LoadGenerator#fromSystemProperties}，用户数通过load.users指定，默认100000。
+ * 默认跳过，见{@link Benchmarks#assumeEnabled()}
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class UserLoadTest {
+
+    private static BenchmarkEnvironment environment;
+
+    private static LoadGenerator generator;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        Benchmarks.assumeEnabled();
+        int users = Integer.getInteger("load.users", 100_000);
+        environment = new BenchmarkEnvironment(users);
+        generator = LoadGenerator.fromSystemProperties(users);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (environment != null) {
+            environment.close();
+        }
+    }
+
+    @Test
+    public void service() throws InterruptedException {
+        UserService userService = environment.getBean(UserService.class);
+        LoadGenerator.Result result = generator.run("UserService.getUserById", userService::getUserById);
+        result.print();
+        Assert.assertEquals(0, result.getErrors());
+    }
+
+    @Test
+    public void http() throws InterruptedException {
+        String endpoint = "http://127.0.0.1:" + environment.getProperty("local.server.port") + "/user?id=";
+        LoadGenerator.Result result = generator.run("GET /user", id -> get(endpoint + id));
+        result.print();
+        Assert.assertEquals(0, result.getErrors());
+    }
+
+    private static void get(String url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            int code = connection.getResponseCode();
+            try (InputStream in = code < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                //读完响应体，连接才能被keep-alive复用
+                byte[] buffer = new byte[1024];
+                while (in != null && in.read(buffer) >= 0) {
+                }
+            }
+            if (code != HttpURLConnection.HTTP_OK) {
+                throw new IllegalStateException("HTTP " + code);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package top.easyblog.benchmark.jmh;
+
+import org.junit.Test;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import top.easyblog.benchmark.Benchmarks;
+
+/**
+ * 运行本包下的JMH基准测试，结果以JSON写入target/jmh-result.json，可以与上一次的结果对比发现性能回退。
+ * 通过系统属性jmh.include(正则)只运行部分基准测试，例如-Djmh.include=MurmurHashOffset；
+ * Redis相关的基准测试需要本机安装redis-server，路径可以通过-Dredis.server指定。
+ * 普通的mvn test不运行，通过-Dbenchmark=true -Dtest=JmhBenchmarks运行，或者直接运行main方法。
+ * 需要test scope的jmh-core、jmh-generator-annprocess(生成基准测试代码)、HdrHistogram和h2依赖
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class JmhBenchmarks {
+
+    @Test
+    public void run() throws RunnerException {
+        Benchmarks.assumeEnabled();
+        main(new String[0]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JmhBenchmarks.class.getPackage().getName() + "." + System.getProperty("jmh.include", ".*Benchmark"))
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(2))
+                .threads(Integer.getInteger("jmh.threads", 1))
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("jmh.result", "target/jmh-result.json"))
+                .build();
+        new Runner(options).run();
+    }
+
+}
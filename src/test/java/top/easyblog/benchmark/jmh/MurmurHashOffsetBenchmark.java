@@ -0,0 +1,95 @@
+package top.easyblog.benchmark.jmh;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.Funnels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import top.easyblog.common.BloomFilterHelper;
+import top.easyblog.common.LongBloomFilterHelper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 偏移量计算的耗时，不依赖Redis。fpp决定哈希函数个数k：0.01对应k=7，0.001对应k=10，0.0001对应k=13
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MurmurHashOffsetBenchmark {
+
+    /**
+     * 预先生成的key个数，循环使用，避免基准测试里包含生成key的开销
+     */
+    private static final int KEYS = 4096;
+
+    @Param({"STRING", "LONG", "INTEGER"})
+    private String keyType;
+
+    @Param({"0.01", "0.001", "0.0001"})
+    private double fpp;
+
+    private BloomFilterHelper<Object> helper;
+
+    private LongBloomFilterHelper longHelper;
+
+    private Object[] keys;
+
+    private long[] longKeys;
+
+    private int cursor;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        Funnel<?> funnel;
+        switch (keyType) {
+            case "STRING":
+                funnel = Funnels.stringFunnel(Charsets.UTF_8);
+                break;
+            case "LONG":
+                funnel = Funnels.longFunnel();
+                break;
+            default:
+                funnel = Funnels.integerFunnel();
+        }
+        helper = new BloomFilterHelper<>((Funnel<Object>) funnel, 1500000, fpp);
+        longHelper = new LongBloomFilterHelper(1500000, fpp);
+        keys = new Object[KEYS];
+        longKeys = new long[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            int id = 1_000_000 + i * 37;
+            keys[i] = "STRING".equals(keyType) ? String.valueOf(id) : "LONG".equals(keyType) ? (Object) (long) id : (Object) id;
+            longKeys[i] = id;
+        }
+    }
+
+    @Benchmark
+    public int[] murmurHashOffset() {
+        return helper.murmurHashOffset(keys[next()]);
+    }
+
+    /**
+     * long元素专用的无分配实现，与keyType无关，作为对照
+     */
+    @Benchmark
+    public int[] threadLocalOffset() {
+        return longHelper.threadLocalOffset(longKeys[next()]);
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (KEYS - 1);
+        return cursor;
+    }
+
+}
@@ -0,0 +1,81 @@
+package top.easyblog.benchmark.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import top.easyblog.benchmark.BenchmarkEnvironment;
+import top.easyblog.common.LongBloomFilterHelper;
+import top.easyblog.common.enums.RedisDBSelector;
+import top.easyblog.common.util.RedisUtils;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地redis-server上单个元素的布隆过滤器读写耗时。bit为逐位SETBIT/GETBIT(k次往返)，
+ * script为Lua脚本(一次往返)。查询的id一半存在一半不存在，不存在的id在逐位检查时会提前返回
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RedisBloomFilterBenchmark {
+
+    private static final String KEY = "BENCH_BLOOM";
+
+    private static final int PRESENT_IDS = 100_000;
+
+    @Param({"bit", "script"})
+    private String path;
+
+    private BenchmarkEnvironment environment;
+
+    private RedisUtils redisUtils;
+
+    private LongBloomFilterHelper helper;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        environment = new BenchmarkEnvironment(0);
+        redisUtils = environment.getBean(RedisUtils.class);
+        helper = new LongBloomFilterHelper(1500000, 0.001);
+        for (long id = 1; id <= PRESENT_IDS; id++) {
+            redisUtils.add2BloomFilterByScript(helper, KEY, id, RedisDBSelector.DB_1);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public Boolean mightContain() {
+        long id = ThreadLocalRandom.current().nextLong(1, PRESENT_IDS * 2L);
+        if ("bit".equals(path)) {
+            return redisUtils.mightContain(helper, KEY, id, RedisDBSelector.DB_1);
+        }
+        return redisUtils.mightContainByScript(helper, KEY, id, RedisDBSelector.DB_1);
+    }
+
+    @Benchmark
+    public Boolean add2BloomFilter() {
+        long id = ThreadLocalRandom.current().nextLong(1, PRESENT_IDS);
+        if ("bit".equals(path)) {
+            return redisUtils.add2BloomFilter(helper, KEY, id, RedisDBSelector.DB_1);
+        }
+        return redisUtils.add2BloomFilterByScript(helper, KEY, id, RedisDBSelector.DB_1);
+    }
+
+}
@@ -0,0 +1,72 @@
+package top.easyblog.benchmark.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import top.easyblog.benchmark.BenchmarkEnvironment;
+import top.easyblog.entity.User;
+import top.easyblog.service.UserService;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserService.getUserById端到端耗时，Redis为本地redis-server，数据库为H2：
+ * <ul>
+ *     <li>local：开启进程内一级缓存，id都存在，预热后全部命中一级缓存</li>
+ *     <li>redis：关闭一级缓存，id都存在，预热后全部命中Redis</li>
+ *     <li>absent：id都不存在，由布隆过滤器拦截</li>
+ * </ul>
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserServiceBenchmark {
+
+    private static final int USERS = 20_000;
+
+    @Param({"local", "redis", "absent"})
+    private String scenario;
+
+    private BenchmarkEnvironment environment;
+
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        environment = "redis".equals(scenario)
+                ? new BenchmarkEnvironment(USERS, "user.query.local-cache-maximum-size=0")
+                : new BenchmarkEnvironment(USERS);
+        userService = environment.getBean(UserService.class);
+        if (!"absent".equals(scenario)) {
+            //把所有用户加载到缓存，测量的是稳定状态下的命中路径
+            for (int id = 1; id <= USERS; id++) {
+                userService.getUserById(id);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public User getUserById() {
+        int id = ThreadLocalRandom.current().nextInt(1, USERS + 1);
+        return userService.getUserById("absent".equals(scenario) ? -id : id);
+    }
+
+}
@@ -0,0 +1,68 @@
+package top.easyblog.common;
+
+import com.google.common.hash.Funnels;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.BitSet;
+
+/**
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class BlockedBloomFilterHelperTest {
+
+    @Test
+    public void offsetsStayInOneBlock() {
+        BlockedBloomFilterHelper<Long> helper = new BlockedBloomFilterHelper<>(Funnels.longFunnel(), 100000, 0.001);
+        Assert.assertEquals(0, helper.getBitSize() % BlockedBloomFilterHelper.BLOCK_BITS);
+        for (long i = 0; i < 10000; i++) {
+            int[] offset = helper.murmurHashOffset(i);
+            for (int o : offset) {
+                Assert.assertEquals(offset[0] / BlockedBloomFilterHelper.BLOCK_BITS, o / BlockedBloomFilterHelper.BLOCK_BITS);
+            }
+        }
+    }
+
+    @Test
+    public void observedFppMatchesEstimate() {
+        int n = 100000;
+        BlockedBloomFilterHelper<Long> helper = new BlockedBloomFilterHelper<>(Funnels.longFunnel(), n, 0.001);
+        BitSet bits = new BitSet(helper.getBitSize());
+        for (long i = 0; i < n; i++) {
+            for (int o : helper.murmurHashOffset(i)) {
+                bits.set(o);
+            }
+        }
+        int falsePositives = 0;
+        int trials = 1000000;
+        for (long i = n; i < n + trials; i++) {
+            boolean contain = true;
+            for (int o : helper.murmurHashOffset(i)) {
+                contain &= bits.get(o);
+            }
+            if (contain) {
+                falsePositives++;
+            }
+        }
+        double observed = (double) falsePositives / trials;
+        Assert.assertTrue(helper.getExpectedFpp() > helper.getUnblockedFpp());
+        Assert.assertEquals(helper.getExpectedFpp(), observed, helper.getExpectedFpp() * 0.3);
+    }
+
+    @Test
+    public void blockContainsUsesRedisBitOrder() {
+        BlockedBloomFilterHelper<Long> helper = new BlockedBloomFilterHelper<>(Funnels.longFunnel(), 100000, 0.001);
+        int[] offset = helper.murmurHashOffset(42L);
+        byte[] block = new byte[BlockedBloomFilterHelper.BLOCK_BYTES];
+        for (int o : offset) {
+            int bit = o % BlockedBloomFilterHelper.BLOCK_BITS;
+            //Redis bitmap中offset 0是第一个字节的最高位
+            block[bit / 8] |= 0x80 >>> (bit % 8);
+        }
+        Assert.assertTrue(helper.blockContains(block, offset));
+        Assert.assertFalse(helper.blockContains(new byte[BlockedBloomFilterHelper.BLOCK_BYTES], offset));
+    }
+
+}
@@ -0,0 +1,49 @@
+package top.easyblog.common;
+
+import com.google.common.hash.Funnels;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.BitSet;
+
+/**
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class BloomFilterHelperTest {
+
+    @Test
+    public void estimateFromSetBits() {
+        BloomFilterHelper<Long> helper = new BloomFilterHelper<>(Funnels.longFunnel(), 100000, 0.001);
+        BitSet bits = new BitSet(helper.getBitSize());
+        for (long id = 1; id <= 100000; id++) {
+            for (int offset : helper.murmurHashOffset(id)) {
+                bits.set(offset);
+            }
+        }
+        long setBits = bits.cardinality();
+        Assert.assertEquals(100000, helper.estimateInsertions(setBits), 100000 * 0.02);
+        Assert.assertEquals(0.001, helper.estimateFpp(setBits), 0.001 * 0.2);
+
+        //插入量翻倍后误判率远超配置值
+        for (long id = 100001; id <= 200000; id++) {
+            for (int offset : helper.murmurHashOffset(id)) {
+                bits.set(offset);
+            }
+        }
+        setBits = bits.cardinality();
+        Assert.assertEquals(200000, helper.estimateInsertions(setBits), 200000 * 0.02);
+        Assert.assertTrue(helper.estimateFpp(setBits) > 0.02);
+    }
+
+    @Test
+    public void estimateWhenFull() {
+        BloomFilterHelper<Long> helper = new BloomFilterHelper<>(Funnels.longFunnel(), 1000, 0.01);
+        Assert.assertEquals(0, helper.estimateInsertions(0), 0);
+        Assert.assertEquals(0, helper.estimateFpp(0), 0);
+        Assert.assertEquals(Double.POSITIVE_INFINITY, helper.estimateInsertions(helper.getBitSize()), 0);
+        Assert.assertEquals(1, helper.estimateFpp(helper.getBitSize()), 0);
+    }
+
+}
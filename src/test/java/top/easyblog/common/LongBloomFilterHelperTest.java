@@ -0,0 +1,35 @@
+package top.easyblog.common;
+
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hashing;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class LongBloomFilterHelperTest {
+
+    @Test
+    public void murmur3Hash64() {
+        Random random = new Random(1);
+        for (int i = 0; i < 10000; i++) {
+            long value = i < 1000 ? i : random.nextLong();
+            Assert.assertEquals(Hashing.murmur3_128().hashLong(value).asLong(), LongBloomFilterHelper.murmur3Hash64(value));
+        }
+    }
+
+    @Test
+    public void sameOffsetAsFunnelHelper() {
+        LongBloomFilterHelper longHelper = new LongBloomFilterHelper(1500000, 0.001);
+        BloomFilterHelper<Long> funnelHelper = new BloomFilterHelper<>(Funnels.longFunnel(), 1500000, 0.001);
+        for (long id = 1; id <= 10000; id++) {
+            Assert.assertArrayEquals(funnelHelper.murmurHashOffset(id), longHelper.threadLocalOffset(id));
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package top.easyblog.common.bloom;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class CoalescingBloomFilterTest {
+
+    @Test
+    public void concurrentLookupsAreBatched() throws Exception {
+        InMemoryFilter delegate = new InMemoryFilter();
+        for (long id = 0; id < 1000; id += 2) {
+            delegate.put(id);
+        }
+        CoalescingBloomFilter<Long> filter = new CoalescingBloomFilter<>(delegate, Duration.ofMillis(2), 256);
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (long id = 0; id < 1000; id++) {
+                long value = id;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return filter.mightContain(value);
+                }));
+            }
+            start.countDown();
+            for (int id = 0; id < 1000; id++) {
+                Assert.assertEquals(id % 2 == 0, results.get(id).get());
+            }
+        } finally {
+            pool.shutdownNow();
+            filter.close();
+        }
+        Assert.assertTrue("batches: " + delegate.batches.get(), delegate.batches.get() < 1000);
+        Assert.assertEquals(0, delegate.singleLookups.get());
+    }
+
+    @Test
+    public void lookupAfterCloseGoesToDelegate() {
+        InMemoryFilter delegate = new InMemoryFilter();
+        delegate.put(1L);
+        CoalescingBloomFilter<Long> filter = new CoalescingBloomFilter<>(delegate, Duration.ofNanos(200_000), 256);
+        filter.close();
+        Assert.assertTrue(filter.mightContain(1L));
+        Assert.assertFalse(filter.mightContain(2L));
+    }
+
+    private static class InMemoryFilter implements BloomFilter<Long> {
+
+        private final Set<Long> values = ConcurrentHashMap.newKeySet();
+
+        private final AtomicInteger batches = new AtomicInteger();
+
+        private final AtomicInteger singleLookups = new AtomicInteger();
+
+        @Override
+        public String getName() {
+            return "test";
+        }
+
+        @Override
+        public Boolean put(Long value) {
+            return values.add(value);
+        }
+
+        @Override
+        public Boolean mightContain(Long value) {
+            singleLookups.incrementAndGet();
+            return values.contains(value);
+        }
+
+        @Override
+        public List<Boolean> putAll(Collection<Long> values) {
+            List<Boolean> result = new ArrayList<>();
+            for (Long value : values) {
+                result.add(put(value));
+            }
+            return result;
+        }
+
+        @Override
+        public List<Boolean> mightContainAll(Collection<Long> values) {
+            batches.incrementAndGet();
+            List<Boolean> result = new ArrayList<>();
+            for (Long value : values) {
+                result.add(this.values.contains(value));
+            }
+            return result;
+        }
+    }
+
+}
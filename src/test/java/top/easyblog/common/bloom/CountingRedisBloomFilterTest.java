@@ -0,0 +1,37 @@
+package top.easyblog.common.bloom;
+
+import com.google.common.hash.Funnels;
+import org.junit.Assert;
+import org.junit.Test;
+import top.easyblog.common.BloomFilterHelper;
+import top.easyblog.common.enums.RedisDBSelector;
+
+/**
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class CountingRedisBloomFilterTest {
+
+    @Test
+    public void acceptsCountersWithinRedisStringLimit() {
+        //约1.4亿bit，4bit计数器共约5.7亿bit，在2^32以内
+        BloomFilterHelper<Long> helper = new BloomFilterHelper<>(Funnels.longFunnel(), 10_000_000, 0.001);
+        CountingRedisBloomFilter<Long> filter = new CountingRedisBloomFilter<>("counting", "COUNTING", RedisDBSelector.DB_0, helper, null);
+        Assert.assertEquals("counting", filter.getName());
+    }
+
+    @Test
+    public void rejectsCountersBeyondRedisStringLimit() {
+        //约14亿bit，普通布隆过滤器可以用一个bitmap保存，4bit计数器共约57亿bit
+        BloomFilterHelper<Long> helper = new BloomFilterHelper<>(Funnels.longFunnel(), 100_000_000, 0.001);
+        Assert.assertTrue((long) helper.getBitSize() * CountingRedisBloomFilter.COUNTER_BITS > (1L << 32));
+        try {
+            new CountingRedisBloomFilter<>("counting", "COUNTING", RedisDBSelector.DB_0, helper, null);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("counting"));
+        }
+    }
+
+}
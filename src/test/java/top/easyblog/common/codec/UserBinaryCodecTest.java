@@ -0,0 +1,68 @@
+package top.easyblog.common.codec;
+
+import com.alibaba.fastjson.JSONObject;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import top.easyblog.entity.User;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class UserBinaryCodecTest {
+
+    private final UserBinaryCodec codec = new UserBinaryCodec();
+
+    @Test
+    public void roundTrip() {
+        User user = user(1500000, "9b2f6c1e-张三", 35, "M");
+        Assert.assertEquals(user, codec.decode(codec.encode(user)));
+        User empty = new User();
+        Assert.assertEquals(empty, codec.decode(codec.encode(empty)));
+        Assert.assertNull(codec.decode(null));
+    }
+
+    @Test
+    public void decodeLegacyJson() {
+        User user = user(42, "legacy", 20, "F");
+        //原有格式：fastjson字符串再经过RedisTemplate的Jackson序列化器
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        mapper.enableDefaultTyping(ObjectMapper.DefaultTyping.NON_FINAL);
+        Jackson2JsonRedisSerializer<Object> jackson = new Jackson2JsonRedisSerializer<>(Object.class);
+        jackson.setObjectMapper(mapper);
+        byte[] legacy = jackson.serialize(JSONObject.toJSONString(user));
+        Assert.assertEquals(user, codec.decode(legacy));
+        Assert.assertEquals(user, codec.decode(new JsonValueCodec<>(User.class).encode(user)));
+    }
+
+    @Test
+    public void decodeCorrupted() {
+        byte[] bytes = codec.encode(user(7, "truncated-name", 30, "M"));
+        //截断在name中间
+        Assert.assertNull(codec.decode(Arrays.copyOf(bytes, bytes.length - 4)));
+        //变长整数没有结束字节
+        Assert.assertNull(codec.decode(new byte[]{BinaryValueCodec.MAGIC, (byte) 0x80}));
+        Assert.assertNull(codec.decode("{\"userId\":".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertNull(codec.decode("\"unterminated".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertNull(new JsonValueCodec<>(User.class).decode("not json".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    static User user(int id, String name, int age, String gender) {
+        User user = new User();
+        user.setUserId(id);
+        user.setName(name);
+        user.setAge(age);
+        user.setGender(gender);
+        return user;
+    }
+
+}
@@ -0,0 +1,151 @@
+package top.easyblog.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class SingleFlightTest {
+
+    @Test
+    public void concurrentCallsShareOneLoad() throws Exception {
+        CountDownLatch waiting = new CountDownLatch(15);
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<Integer, String>() {
+            @Override
+            protected String await(CompletableFuture<String> call) {
+                //已经拿到进行中的加载，之后不论何时放行都会共享它的结果
+                waiting.countDown();
+                return super.await(call);
+            }
+        };
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(pool.submit(() -> singleFlight.execute(1, () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "user-1";
+            })));
+            loading.await();
+            for (int i = 0; i < 15; i++) {
+                results.add(pool.submit(() -> singleFlight.execute(1, () -> {
+                    loads.incrementAndGet();
+                    return "other";
+                })));
+            }
+            CompletableFuture<String> async = singleFlight.executeAsync(1, () -> "other", pool);
+            //等其余线程都进入等待后再放行第一个加载
+            Assert.assertTrue(waiting.await(10, TimeUnit.SECONDS));
+            release.countDown();
+            for (Future<String> result : results) {
+                Assert.assertEquals("user-1", result.get());
+            }
+            Assert.assertEquals("user-1", async.get());
+            Assert.assertEquals(1, loads.get());
+            Assert.assertEquals(0, singleFlight.inFlight());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failureIsSharedAndNotCached() {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+        try {
+            singleFlight.execute(1, () -> {
+                throw new IllegalStateException("db down");
+            });
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("db down", e.getMessage());
+        }
+        Assert.assertEquals("user-1", singleFlight.execute(1, () -> "user-1"));
+    }
+
+    @Test
+    public void errorIsSharedWithWaiters() throws Exception {
+        CountDownLatch waiting = new CountDownLatch(1);
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<Integer, String>() {
+            @Override
+            protected String await(CompletableFuture<String> call) {
+                waiting.countDown();
+                return super.await(call);
+            }
+        };
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = pool.submit(() -> singleFlight.execute(1, () -> {
+                loading.countDown();
+                await(release);
+                throw new StackOverflowError("deep row");
+            }));
+            loading.await();
+            Future<String> second = pool.submit(() -> singleFlight.execute(1, () -> "other"));
+            Assert.assertTrue(waiting.await(10, TimeUnit.SECONDS));
+            release.countDown();
+            for (Future<String> result : Arrays.asList(first, second)) {
+                try {
+                    result.get(10, TimeUnit.SECONDS);
+                    Assert.fail();
+                } catch (ExecutionException e) {
+                    Assert.assertTrue(e.getCause() instanceof StackOverflowError);
+                    Assert.assertEquals("deep row", e.getCause().getMessage());
+                }
+            }
+            Assert.assertEquals(0, singleFlight.inFlight());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void asyncLoaderIsShared() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> first = singleFlight.executeAsync(1, () -> {
+            loads.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<String> second = singleFlight.executeAsync(1, () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        Assert.assertEquals(1, singleFlight.inFlight());
+        pending.complete("user-1");
+        Assert.assertEquals("user-1", first.get());
+        Assert.assertEquals("user-1", second.get());
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(0, singleFlight.inFlight());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package top.easyblog.controller;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import top.easyblog.entity.User;
+import top.easyblog.service.UserService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class UserControllerTest {
+
+    private final List<List<Integer>> queries = new ArrayList<>();
+
+    private UserController userController;
+
+    @Before
+    public void setUp() {
+        userController = new UserController();
+        ReflectionTestUtils.setField(userController, "userService", new UserService() {
+            @Override
+            public List<User> getUsersByIds(List<Integer> ids) {
+                queries.add(ids);
+                return Collections.emptyList();
+            }
+        });
+        ReflectionTestUtils.setField(userController, "maxBatchSize", 100);
+    }
+
+    @Test
+    public void batchWithinLimit() {
+        List<Integer> ids = ids(100);
+        Assert.assertTrue(userController.searchUsers(ids).isEmpty());
+        Assert.assertEquals(Collections.singletonList(ids), queries);
+    }
+
+    @Test
+    public void oversizedBatchRejected() {
+        try {
+            userController.searchUsers(ids(101));
+            Assert.fail();
+        } catch (ResponseStatusException e) {
+            Assert.assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+        }
+        Assert.assertTrue(queries.isEmpty());
+    }
+
+    private static List<Integer> ids(int count) {
+        return IntStream.rangeClosed(1, count).boxed().collect(Collectors.toList());
+    }
+
+}
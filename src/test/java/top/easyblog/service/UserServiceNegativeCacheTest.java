@@ -0,0 +1,274 @@
+package top.easyblog.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.easyblog.common.bloom.BloomFilter;
+import top.easyblog.common.codec.UserBinaryCodec;
+import top.easyblog.common.enums.RedisDBSelector;
+import top.easyblog.common.util.RedisUtils;
+import top.easyblog.entity.User;
+import top.easyblog.mapper.UserMapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 数据库中不存在的id的不存在标记：命中时不查数据库，标记到期后重新查询，并且不进入一级缓存
+ *
+ * @author ：huangxin
+ * @modified ：
+ * @since ：2020/06/11 10:25
+ */
+public class UserServiceNegativeCacheTest {
+
+    private static final int MISSING_ID = 404;
+
+    private final InMemoryRedis redis = new InMemoryRedis();
+
+    private final InMemoryUserMapper userMapper = new InMemoryUserMapper();
+
+    private UserService userService;
+
+    @Before
+    public void setUp() {
+        userService = new UserService();
+        ReflectionTestUtils.setField(userService, "userMapper", userMapper);
+        ReflectionTestUtils.setField(userService, "redisUtils", redis);
+        ReflectionTestUtils.setField(userService, "userInfoBloomFilter", new AlwaysPresentFilter());
+        ReflectionTestUtils.setField(userService, "userValueCodec", new UserBinaryCodec());
+        ReflectionTestUtils.setField(userService, "dbThreads", 2);
+        ReflectionTestUtils.setField(userService, "inListChunkSize", 500);
+        ReflectionTestUtils.setField(userService, "buckets", 16);
+        ReflectionTestUtils.setField(userService, "ttlSeconds", 3600L);
+        ReflectionTestUtils.setField(userService, "ttlJitterRatio", 0.2);
+        ReflectionTestUtils.setField(userService, "negativeTtlSeconds", 30L);
+        ReflectionTestUtils.setField(userService, "localCacheMaximumSize", 100L);
+        ReflectionTestUtils.setField(userService, "localCacheExpireSeconds", 60L);
+        userService.init();
+    }
+
+    @After
+    public void tearDown() {
+        userService.destroy();
+    }
+
+    @Test
+    public void negativeHitSkipsDatabase() throws Exception {
+        Assert.assertNull(userService.getUserById(MISSING_ID));
+        Assert.assertEquals(1, userMapper.queries.get());
+        //标记是独立的短过期时间key，不写入用户缓存桶
+        Assert.assertEquals(Collections.singletonMap("USER_INFO_NULL:" + MISSING_ID, 30L), redis.nullKeys);
+        Assert.assertTrue(redis.hashes.values().stream().noneMatch(items -> items.containsKey(MISSING_ID + "")));
+
+        Assert.assertNull(userService.getUserById(MISSING_ID));
+        Assert.assertNull(userService.getUserByIdAsync(MISSING_ID).toCompletableFuture().get());
+        Assert.assertTrue(userService.getUsersByIds(Collections.singletonList(MISSING_ID)).isEmpty());
+        Assert.assertEquals(1, userMapper.queries.get());
+    }
+
+    @Test
+    public void expiredMarkerReloads() {
+        Assert.assertNull(userService.getUserById(MISSING_ID));
+        //标记到期被Redis删除，期间用户已经创建
+        redis.nullKeys.clear();
+        User user = user(MISSING_ID);
+        userMapper.users.put(MISSING_ID, user);
+
+        Assert.assertEquals(user, userService.getUserById(MISSING_ID));
+        Assert.assertEquals(2, userMapper.queries.get());
+    }
+
+    @Test
+    public void negativeNotCachedLocally() {
+        userMapper.users.put(1, user(1));
+        Assert.assertEquals(Collections.singletonList(user(1)), userService.getUsersByIds(Arrays.asList(1, MISSING_ID)));
+        Assert.assertNull(userService.getUserById(MISSING_ID));
+
+        Cache<Integer, User> localUsers = localUsers();
+        Assert.assertNotNull(localUsers.getIfPresent(1));
+        Assert.assertNull(localUsers.getIfPresent(MISSING_ID));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<Integer, User> localUsers() {
+        return (Cache<Integer, User>) ReflectionTestUtils.getField(userService, "localUsers");
+    }
+
+    private static User user(int id) {
+        User user = new User();
+        user.setUserId(id);
+        user.setName("user-" + id);
+        user.setAge(20);
+        user.setGender("M");
+        return user;
+    }
+
+    /**
+     * 只实现UserService用到的原始字节读写，key过期通过直接删除模拟
+     */
+    private static class InMemoryRedis extends RedisUtils {
+
+        private final Map<String, Map<String, byte[]>> hashes = new ConcurrentHashMap<>();
+
+        /**
+         * 不存在标记的key及其过期时间(秒)
+         */
+        private final Map<String, Long> nullKeys = new ConcurrentHashMap<>();
+
+        @Override
+        public byte[] hgetRaw(String key, String item, RedisDBSelector dbIndex) {
+            Map<String, byte[]> items = hashes.get(key);
+            return items == null ? null : items.get(item);
+        }
+
+        @Override
+        public CompletionStage<byte[]> hgetRawAsync(String key, String item, RedisDBSelector dbIndex) {
+            return CompletableFuture.completedFuture(hgetRaw(key, item, dbIndex));
+        }
+
+        @Override
+        public Map<String, List<byte[]>> hmultiGetRaw(Map<String, List<String>> itemsByKey, RedisDBSelector dbIndex) {
+            Map<String, List<byte[]>> result = new LinkedHashMap<>();
+            itemsByKey.forEach((key, items) -> {
+                List<byte[]> values = new ArrayList<>(items.size());
+                for (String item : items) {
+                    values.add(hgetRaw(key, item, dbIndex));
+                }
+                result.put(key, values);
+            });
+            return result;
+        }
+
+        @Override
+        public boolean hmsetRawWithTtl(Map<String, Map<String, byte[]>> hashes, long minTime, long maxTime, RedisDBSelector dbIndex) {
+            hashes.forEach((key, items) -> this.hashes.computeIfAbsent(key, k -> new ConcurrentHashMap<>()).putAll(items));
+            return true;
+        }
+
+        @Override
+        public Boolean hasKey(String key, RedisDBSelector dbIndex) {
+            return nullKeys.containsKey(key);
+        }
+
+        @Override
+        public CompletionStage<Boolean> hasKeyAsync(String key, RedisDBSelector dbIndex) {
+            return CompletableFuture.completedFuture(hasKey(key, dbIndex));
+        }
+
+        @Override
+        public List<Boolean> hasKeys(List<String> keys, RedisDBSelector dbIndex) {
+            List<Boolean> result = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                result.add(hasKey(key, dbIndex));
+            }
+            return result;
+        }
+
+        @Override
+        public boolean setRawAll(Collection<String> keys, byte[] value, long time, RedisDBSelector dbIndex) {
+            keys.forEach(key -> nullKeys.put(key, time));
+            return true;
+        }
+    }
+
+    private static class InMemoryUserMapper implements UserMapper {
+
+        private final Map<Integer, User> users = new ConcurrentHashMap<>();
+
+        private final AtomicInteger queries = new AtomicInteger();
+
+        @Override
+        public User selectByPrimaryKey(Integer userId) {
+            queries.incrementAndGet();
+            return users.get(userId);
+        }
+
+        @Override
+        public List<User> selectByPrimaryKeys(List<Integer> userIds) {
+            queries.incrementAndGet();
+            List<User> result = new ArrayList<>();
+            for (Integer userId : userIds) {
+                if (users.containsKey(userId)) {
+                    result.add(users.get(userId));
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public int insertBatch(List<User> user) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int insertSelective(User user) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<User> selectAll() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Integer selectMinUserId() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Integer selectMaxUserId() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Cursor<Integer> scanUserIds(int fromId, long toId) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * 全部判定为可能存在，让请求都走到缓存和数据库
+     */
+    private static class AlwaysPresentFilter implements BloomFilter<Long> {
+
+        @Override
+        public String getName() {
+            return "test";
+        }
+
+        @Override
+        public Boolean put(Long value) {
+            return true;
+        }
+
+        @Override
+        public Boolean mightContain(Long value) {
+            return true;
+        }
+
+        @Override
+        public List<Boolean> putAll(Collection<Long> values) {
+            return new ArrayList<>(Collections.nCopies(values.size(), Boolean.TRUE));
+        }
+
+        @Override
+        public List<Boolean> mightContainAll(Collection<Long> values) {
+            return new ArrayList<>(Collections.nCopies(values.size(), Boolean.TRUE));
+        }
+    }
+
+}
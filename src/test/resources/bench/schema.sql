@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS user (
+  user_id INT NOT NULL AUTO_INCREMENT,
+  name VARCHAR(64) DEFAULT NULL,
+  age INT DEFAULT NULL,
+  gender VARCHAR(2) DEFAULT NULL,
+  PRIMARY KEY (user_id)
+);